@@ -0,0 +1,85 @@
+package application;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.io.GameArchive;
+import chess.io.GameArchiveWriter;
+import chess.io.PgnGame;
+import chess.io.PgnReader;
+import chess.io.PgnWriter;
+
+/* Programa de linha de comando para o arquivo binário de partidas
+ * Uso: java application/ArchiveProgram converter <entrada.pgn> <saida.xadz>
+ *      java application/ArchiveProgram reproduzir <arquivo.xadz>
+ *      java application/ArchiveProgram partida <arquivo.xadz> <número>
+ */
+public class ArchiveProgram {
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Uso: ArchiveProgram converter <entrada.pgn> <saida.xadz> | reproduzir <arquivo.xadz> | partida <arquivo.xadz> <número>");
+			return;
+		}
+		
+		try {
+			long start = System.nanoTime();
+			if (args[0].equals("converter") && args.length > 2) {
+				convert(Paths.get(args[1]), Paths.get(args[2]));
+			}
+			else if (args[0].equals("reproduzir")) {
+				replay(Paths.get(args[1]));
+			}
+			else if (args[0].equals("partida") && args.length > 2) {
+				try (GameArchive archive = new GameArchive(Paths.get(args[1]))) {
+					PgnWriter writer = new PgnWriter(new OutputStreamWriter(System.out));
+					writer.write(archive.getGame(Integer.parseInt(args[2])));
+					writer.flush();
+				}
+				return;
+			}
+			else {
+				System.out.println("Comando inválido: " + args[0]);
+				return;
+			}
+			System.out.printf("Tempo: %.3f s%n", (System.nanoTime() - start) / 1e9);
+		} catch (IOException e) {
+			System.out.println("Erro ao ler o arquivo: " + e.getMessage());
+		} catch (ChessException | IndexOutOfBoundsException | NumberFormatException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+	
+	// Converte as partidas válidas de um arquivo PGN para o formato binário
+	private static void convert(Path input, Path output) throws IOException {
+		long errors = 0;
+		try (PgnReader reader = PgnReader.open(input); GameArchiveWriter writer = new GameArchiveWriter(output)) {
+			PgnGame game;
+			while ((game = reader.next()) != null) {
+				if (game.getError() != null) {
+					errors++;
+					continue;
+				}
+				writer.add(game);
+			}
+			System.out.println("Partidas convertidas: " + writer.getGameCount() + " (com erros: " + errors + ")");
+		}
+	}
+	
+	// Reproduz todas as partidas do arquivo binário
+	private static void replay(Path path) throws IOException {
+		try (GameArchive archive = new GameArchive(path)) {
+			long moves = 0;
+			for (int i = 0; i < archive.getGameCount(); i++) {
+				archive.replay(i);
+				moves += archive.getMoveCount(i);
+			}
+			System.out.println("Partidas: " + archive.getGameCount());
+			System.out.println("Lances: " + moves);
+		}
+	}
+	
+}
@@ -0,0 +1,136 @@
+package application;
+
+import java.util.function.LongSupplier;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.Perft;
+
+/* Medição de desempenho da geração de lances
+ * Cada medição é repetida durante um aquecimento (para a JIT compilar o código) e depois durante um tempo fixo,
+ * e o resultado é impresso em operações por segundo. Uso: java application/Benchmark [segundos por medição]
+ */
+public class Benchmark {
+
+	// Lances em notação de coordenadas que levam a cada posição medida, a partir da posição inicial
+	private static final String[][] POSITIONS = {
+		{},
+		{"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "d2d3", "f8c5", "e1g1", "d7d6"},
+		{"d2d4", "d7d5", "c2c4", "e7e6", "b1c3", "g8f6", "c1g5", "f8e7", "e2e3", "e8g8", "g1f3", "b8d7"},
+	};
+	
+	// Posição em que as brancas levaram xeque-mate, usada no teste de xeque-mate
+	private static final String[] MATE = {"f2f3", "e7e5", "g2g4", "d8h4"};
+	
+	private static double seconds = 2.0;
+	
+	// Acumula os resultados das medições para que a JIT não elimine o código medido
+	private static long sink;
+	
+	public static void main(String[] args) {
+		if (args.length > 0) {
+			seconds = Double.parseDouble(args[0]);
+		}
+		
+		for (int i = 0; i < POSITIONS.length; i++) {
+			ChessMatch chessMatch = play(POSITIONS[i]);
+			System.out.println("Posição " + (i + 1) + " (" + POSITIONS[i].length + " lances)");
+			benchmarkPerft(chessMatch);
+			benchmarkGenerators(chessMatch);
+			benchmarkCheck(chessMatch);
+			System.out.println();
+		}
+		
+		ChessMatch mated = play(MATE);
+		System.out.println("Posição de xeque-mate");
+		measure("testCheckMate", "chamadas/s", () -> {
+			consume(mated.isCheckMate(Color.BRANCO));
+			return 1;
+		});
+		System.out.println("(" + sink + ")");
+	}
+	
+	private static ChessMatch play(String[] moves) {
+		ChessMatch chessMatch = new ChessMatch();
+		for (String move : moves) {
+			chessMatch.makeMove(chessMatch.parseMove(move));
+		}
+		return chessMatch;
+	}
+	
+	// Nós por segundo do Perft, que inclui a geração de lances legais, "makeMove" e "unmakeMove"
+	private static void benchmarkPerft(ChessMatch chessMatch) {
+		Perft perft = new Perft(chessMatch);
+		measure("perft(3)", "nós/s", () -> perft.perft(3));
+	}
+	
+	// Lances pseudo-legais por segundo dos geradores das peças do pacote chess.pieces
+	private static void benchmarkGenerators(ChessMatch chessMatch) {
+		ChessPiece[] pieces = new ChessPiece[32];
+		int count = 0;
+		ChessPiece[][] mat = chessMatch.getPieces();
+		for (ChessPiece[] row : mat) {
+			for (ChessPiece piece : row) {
+				if (piece != null) {
+					pieces[count++] = piece;
+				}
+			}
+		}
+		int[] moves = new int[Move.MAX_MOVES];
+		int total = count;
+		measure("generateMoves (peças)", "lances/s", () -> {
+			long generated = 0;
+			for (int i = 0; i < total; i++) {
+				generated += pieces[i].generateMoves(moves, 0);
+			}
+			return generated;
+		});
+		measure("legalMoves", "lances/s", () -> chessMatch.legalMoves(moves));
+	}
+	
+	private static void benchmarkCheck(ChessMatch chessMatch) {
+		measure("testCheck", "chamadas/s", () -> {
+			consume(chessMatch.isCheck(Color.BRANCO));
+			consume(chessMatch.isCheck(Color.PRETO));
+			return 2;
+		});
+		measure("testCheckMate", "chamadas/s", () -> {
+			consume(chessMatch.isCheckMate(Color.BRANCO));
+			consume(chessMatch.isCheckMate(Color.PRETO));
+			return 2;
+		});
+	}
+	
+	private static void consume(boolean value) {
+		if (value) {
+			sink++;
+		}
+	}
+	
+	/* Executa a operação repetidamente durante o aquecimento e depois durante o tempo de medição
+	 * A operação retorna a quantidade de unidades (nós, lances ou chamadas) que processou
+	 */
+	private static void measure(String name, String unit, LongSupplier operation) {
+		run(operation, seconds / 2);
+		long start = System.nanoTime();
+		long units = run(operation, seconds);
+		long elapsed = System.nanoTime() - start;
+		System.out.printf("  %-24s %,15.0f %s%n", name, units * 1e9 / elapsed, unit);
+	}
+	
+	private static long run(LongSupplier operation, double duration) {
+		long end = System.nanoTime() + (long)(duration * 1e9);
+		long units = 0;
+		do {
+			for (int i = 0; i < 16; i++) {
+				long result = operation.getAsLong();
+				units += result;
+				sink += result;
+			}
+		} while (System.nanoTime() < end);
+		return units;
+	}
+	
+}
@@ -0,0 +1,66 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.engine.OpeningBook;
+
+/* Programa de linha de comando para o livro de aberturas
+ * Uso: java application/BookProgram construir <partidas.pgn> <livro.bin> [lances por partida] [mínimo de partidas]
+ *      java application/BookProgram consultar <livro.bin> [fen "<FEN>"] [lances em notação de coordenadas...]
+ */
+public class BookProgram {
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Uso: BookProgram construir <partidas.pgn> <livro.bin> [lances] [mínimo] | consultar <livro.bin> [fen \"<FEN>\"] [lances...]");
+			return;
+		}
+		
+		try {
+			if (args[0].equals("construir") && args.length > 2) {
+				int maxPly = (args.length > 3) ? Integer.parseInt(args[3]) : 20;
+				int minCount = (args.length > 4) ? Integer.parseInt(args[4]) : 1;
+				long start = System.nanoTime();
+				int entries = OpeningBook.build(Paths.get(args[1]), Paths.get(args[2]), maxPly, minCount);
+				System.out.println("Entradas: " + entries);
+				System.out.printf("Tempo: %.3f s%n", (System.nanoTime() - start) / 1e9);
+			}
+			else if (args[0].equals("consultar")) {
+				int next = 2;
+				ChessMatch chessMatch = new ChessMatch();
+				if (args.length > next + 1 && args[next].equals("fen")) {
+					chessMatch = Fen.parse(args[next + 1]);
+					next += 2;
+				}
+				for (int i = next; i < args.length; i++) {
+					chessMatch.makeMove(chessMatch.parseMove(args[i]));
+				}
+				
+				try (OpeningBook book = new OpeningBook(Paths.get(args[1]))) {
+					int[] moves = new int[Move.MAX_MOVES];
+					int[] weights = new int[Move.MAX_MOVES];
+					int count = book.probe(chessMatch, moves, weights);
+					if (count == 0) {
+						System.out.println("Posição fora do livro");
+					}
+					for (int i = 0; i < count; i++) {
+						System.out.println(Move.toString(moves[i]) + ": " + weights[i]);
+					}
+				}
+			}
+			else {
+				System.out.println("Comando inválido: " + args[0]);
+			}
+		} catch (IOException e) {
+			System.out.println("Erro ao ler o arquivo: " + e.getMessage());
+		} catch (ChessException | NumberFormatException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+	
+}
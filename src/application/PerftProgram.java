@@ -0,0 +1,89 @@
+package application;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Perft;
+
+/* Programa de linha de comando para o Perft
+ * Uso: java application/PerftProgram <profundidade> [divide] [fen "<FEN>"] [lances em notação de coordenadas...]
+ * Os lances opcionais são feitos a partir da posição inicial (ou da FEN) antes da contagem (por exemplo: 3 divide e2e4 e7e5)
+ * Com "verificar", conta as posições de referência (posição inicial, "Kiwipete" e as posições 3 a 6 da Chess Programming
+ * Wiki) em profundidades fixas e termina com código de saída 1 se alguma contagem for diferente da publicada
+ */
+public class PerftProgram {
+	
+	// Posições de referência, com a profundidade e a contagem publicada para cada uma
+	private static final String[] FENS = {
+		Fen.START_POSITION,
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+		"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+		"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+	};
+	private static final int[] DEPTHS = {5, 4, 5, 4, 4, 4};
+	private static final long[] EXPECTED = {4865609L, 4085603L, 674624L, 422333L, 2103487L, 3894594L};
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Uso: PerftProgram <profundidade> [divide] [fen \"<FEN>\"] [lances...] | verificar");
+			return;
+		}
+		if (args[0].equals("verificar")) {
+			if (!verify()) {
+				System.exit(1);
+			}
+			return;
+		}
+		
+		try {
+			int depth = Integer.parseInt(args[0]);
+			int next = 1;
+			boolean divide = args.length > 1 && args[1].equals("divide");
+			if (divide) {
+				next++;
+			}
+			
+			ChessMatch chessMatch = new ChessMatch();
+			if (args.length > next + 1 && args[next].equals("fen")) {
+				chessMatch = Fen.parse(args[next + 1]);
+				next += 2;
+			}
+			for (int i = next; i < args.length; i++) {
+				chessMatch.makeMove(chessMatch.parseMove(args[i]));
+			}
+			
+			Perft perft = new Perft(chessMatch);
+			long start = System.nanoTime();
+			long nodes = divide ? perft.divide(depth, System.out) : perft.perft(depth);
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			
+			System.out.println("Perft(" + depth + ") = " + nodes);
+			System.out.printf("Tempo: %.3f s, %.0f nós/s%n", elapsed / 1e9, nodes * 1e9 / elapsed);
+		} catch (NumberFormatException e) {
+			System.out.println("Profundidade inválida: " + args[0]);
+		} catch (ChessException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+	
+	// Conta todas as posições de referência, retornando se todas as contagens conferem
+	private static boolean verify() {
+		int failures = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < FENS.length; i++) {
+			long nodes = new Perft(Fen.parse(FENS[i])).perft(DEPTHS[i]);
+			boolean ok = nodes == EXPECTED[i];
+			if (!ok) {
+				failures++;
+			}
+			System.out.println((ok ? "OK    " : "FALHA ") + "Perft(" + DEPTHS[i] + ") = " + nodes 
+					+ (ok ? "" : " (esperado " + EXPECTED[i] + ")") + "  " + FENS[i]);
+		}
+		System.out.printf("Tempo: %.3f s%n", (System.nanoTime() - start) / 1e9);
+		System.out.println((failures == 0) ? "Todas as contagens conferem" : failures + " contagem(ns) diferente(s)");
+		return failures == 0;
+	}
+	
+}
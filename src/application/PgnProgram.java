@@ -0,0 +1,82 @@
+package application;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessException;
+import chess.io.PgnReader;
+import chess.io.PgnWriter;
+
+/* Programa de linha de comando que reproduz todas as partidas de um arquivo PGN pela API da partida
+ * Uso: java application/PgnProgram <arquivo.pgn> [threads] [mapa] [exportar <saida.pgn>]
+ * Com "mapa", o arquivo é lido por janelas mapeadas em memória; com "exportar", as partidas válidas são
+ * escritas novamente em PGN (com várias threads, fora da ordem do arquivo)
+ */
+public class PgnProgram {
+	
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Uso: PgnProgram <arquivo.pgn> [threads] [mapa] [exportar <saida.pgn>]");
+			return;
+		}
+		
+		Path path = Paths.get(args[0]);
+		int threads = 1;
+		boolean mapped = false;
+		Path output = null;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("mapa")) {
+				mapped = true;
+			}
+			else if (args[i].equals("exportar") && i + 1 < args.length) {
+				output = Paths.get(args[++i]);
+			}
+			else {
+				threads = Integer.parseInt(args[i]);
+			}
+		}
+		
+		AtomicLong moves = new AtomicLong();
+		AtomicLong errors = new AtomicLong();
+		long start = System.nanoTime();
+		try (PgnWriter writer = (output == null) ? null : PgnWriter.open(output)) {
+			long games = PgnReader.readParallel(path, threads, mapped, game -> {
+				try {
+					if (game.getError() == null) {
+						game.replay();
+					}
+				} catch (ChessException e) {
+					errors.incrementAndGet();
+					return;
+				}
+				if (game.getError() != null) {
+					errors.incrementAndGet();
+					return;
+				}
+				moves.addAndGet(game.getMoveCount());
+				if (writer != null) {
+					synchronized (writer) {
+						try {
+							writer.write(game);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+				}
+			});
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			
+			System.out.println("Partidas: " + games + " (com erros: " + errors.get() + ")");
+			System.out.println("Lances: " + moves.get());
+			System.out.printf("Tempo: %.3f s, %.0f partidas/s%n", elapsed / 1e9, games * 1e9 / elapsed);
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Erro ao ler o arquivo: " + e.getMessage());
+		} catch (NumberFormatException e) {
+			System.out.println("Número de threads inválido");
+		}
+	}
+	
+}
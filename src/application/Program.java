@@ -1,5 +1,7 @@
 package application;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
@@ -9,6 +11,11 @@ import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.Color;
+import chess.engine.Engine;
+import chess.engine.OpeningBook;
+import chess.engine.SearchLimits;
+import chess.engine.Tablebase;
 
 public class Program {
 
@@ -17,17 +24,76 @@ public class Program {
 		Scanner sc = new Scanner(System.in);
 		ChessMatch chessMatch = new ChessMatch();
 		List<ChessPiece> captured = new ArrayList<>();
-
-		// Enquanto não houver xeque-mate, o jogo é impresso e repetido
-		while (!chessMatch.getCheckMate()) {
+		
+		/* Com o argumento "computador", as peças pretas são jogadas pelo motor de busca
+		 * (opcionalmente seguido do tempo por lance em milissegundos, de "livro <arquivo>" com um livro de aberturas
+		 * e de "tabelas <diretório>" com as tabelas de finais)
+		 */
+		Engine engine = null;
+		long moveTime = 2000;
+		if (args.length > 0 && args[0].equals("computador")) {
+			engine = new Engine();
+			for (int i = 1; i < args.length; i++) {
+				if (args[i].equals("livro") && i + 1 < args.length) {
+					try {
+						engine.setOpeningBook(new OpeningBook(Paths.get(args[++i])));
+					} catch (IOException e) {
+						System.out.println("Erro ao abrir o livro de aberturas: " + e.getMessage());
+					}
+				}
+				else if (args[i].equals("tabelas") && i + 1 < args.length) {
+					try {
+						engine.setTablebase(new Tablebase(Paths.get(args[++i])));
+					} catch (IOException e) {
+						System.out.println("Erro ao abrir as tabelas de finais: " + e.getMessage());
+					}
+				}
+				else {
+					moveTime = Long.parseLong(args[i]);
+				}
+			}
+		}
+		
+		// Enquanto não houver xeque-mate ou empate, o jogo é impresso e repetido
+		while (!chessMatch.getCheckMate() && !chessMatch.getDraw()) {
 			 try {
 				 
 				// Imprime a partida e o tabuleiro, perguntando a posição da peça de origem do lance
 				UI.clearScreen();
 				UI.printMatch(chessMatch, captured);
 				System.out.println();
-				System.out.print("Posição de origem: ");
-				ChessPosition source = UI.readChessPosition(sc);
+				
+				// Vez do computador: o motor escolhe e realiza o lance pela mesma API usada pelo jogador
+				if (engine != null && chessMatch.getCurrentPlayer() == Color.PRETO) {
+					System.out.println("Computador pensando...");
+					int move = engine.think(chessMatch, SearchLimits.moveTime(moveTime)).getBestMove();
+					ChessPiece capturedPiece = chessMatch.performChessMove(move);
+					if (capturedPiece != null) {
+						captured.add(capturedPiece);
+					}
+					continue;
+				}
+				
+				/* Além da posição de origem, aceita "desfazer" e "refazer" para voltar e avançar na partida
+				 * (contra o computador, dois meios-lances por vez, para continuar na vez das brancas)
+				 */
+				System.out.print("Posição de origem (ou desfazer/refazer): ");
+				String input = sc.nextLine().trim();
+				if (input.equals("desfazer") || input.equals("refazer")) {
+					boolean undo = input.equals("desfazer");
+					boolean changed = undo ? chessMatch.undo() : chessMatch.redo();
+					if (changed && engine != null && chessMatch.getCurrentPlayer() == Color.PRETO) {
+						if (undo) {
+							chessMatch.undo();
+						}
+						else {
+							chessMatch.redo();
+						}
+					}
+					captured = chessMatch.getCapturedPieces();
+					continue;
+				}
+				ChessPosition source = UI.parseChessPosition(input);
 				
 				// Mostra os movimentos possíveis para a peça na posição de origem
 				boolean[][] possibleMoves = chessMatch.possibleMoves(source);
@@ -70,7 +136,7 @@ public class Program {
 			} 
 		}
 		
-		// Depois do xeque-mate, mostra as informações da partida e a lista de peças capturadas.
+		// Depois do xeque-mate ou do empate, mostra as informações da partida e a lista de peças capturadas.
 		UI.clearScreen();
 		UI.printMatch(chessMatch, captured);
 	}
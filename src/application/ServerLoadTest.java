@@ -0,0 +1,137 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.server.GameServer;
+
+/* Teste de carga do servidor de partidas: clientes simulados se conectam pela interface local, todos ao mesmo tempo,
+ * e cada um joga uma partida com lances sorteados entre os lances legais informados pelo servidor
+ * Cada cliente só conta como conectado depois que o servidor responde ao seu primeiro comando ("nova"): a conexão é
+ * completada pelo sistema operacional antes de o servidor aceitá-la, e só a resposta garante que a sessão existe
+ * Uso: java application/ServerLoadTest [clientes] [meios-lances por partida] [porta de um servidor já em execução]
+ * Sem a porta, o servidor é iniciado no próprio processo, em uma porta livre
+ */
+public class ServerLoadTest {
+	
+	private static final AtomicLong commands = new AtomicLong();
+	private static final AtomicLong totalLatency = new AtomicLong();
+	private static final AtomicLong maxLatency = new AtomicLong();
+	private static final AtomicLong errors = new AtomicLong();
+	
+	public static void main(String[] args) throws Exception {
+		int clients = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int plies = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+		GameServer server = null;
+		int port;
+		if (args.length > 2) {
+			port = Integer.parseInt(args[2]);
+		}
+		else {
+			server = new GameServer(0);
+			server.start();
+			port = server.getPort();
+		}
+		
+		ExecutorService executor = GameServer.newSessionExecutor();
+		CountDownLatch connected = new CountDownLatch(clients);
+		CountDownLatch go = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < clients; i++) {
+			long seed = i;
+			futures.add(executor.submit(() -> {
+				play(port, plies, new Random(seed), connected, go);
+				return null;
+			}));
+		}
+		
+		// Todas as sessões são atendidas pelo servidor antes de os clientes começarem a jogar, para que sejam simultâneas
+		connected.await();
+		if (server != null) {
+			int sessions = server.getSessionCount();
+			System.out.println("Sessões simultâneas: " + sessions);
+			if (sessions != clients) {
+				throw new IllegalStateException("Sessões simultâneas: " + sessions + ", esperadas: " + clients);
+			}
+		}
+		
+		// As medições começam com as partidas, sem os comandos "nova" da conexão
+		commands.set(0);
+		totalLatency.set(0);
+		maxLatency.set(0);
+		long start = System.nanoTime();
+		go.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		long elapsed = Math.max(1, System.nanoTime() - start);
+		executor.shutdown();
+		
+		long count = Math.max(1, commands.get());
+		System.out.println("Clientes: " + clients + ", comandos: " + commands.get() + ", erros: " + errors.get());
+		System.out.printf("Tempo: %.3f s, %.0f comandos/s%n", elapsed / 1e9, commands.get() * 1e9 / elapsed);
+		System.out.printf("Latência média: %.3f ms, máxima: %.3f ms%n", totalLatency.get() / 1e6 / count, maxLatency.get() / 1e6);
+		if (server != null) {
+			server.close();
+		}
+	}
+	
+	// Um cliente: cria uma partida e joga até o fim dela ou até o limite de meios-lances
+	private static void play(int port, int plies, Random random, CountDownLatch connected, CountDownLatch go) throws IOException, InterruptedException {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+			request(in, out, "nova");
+			connected.countDown();
+			go.await();
+			
+			for (int i = 0; i < plies; i++) {
+				String[] moves = request(in, out, "lances").split(" ");
+				if (moves.length < 2) {
+					break;
+				}
+				String response = request(in, out, "lance " + moves[1 + random.nextInt(moves.length - 1)]);
+				if (response.startsWith("ok xeque-mate") || response.startsWith("ok afogamento") || response.startsWith("ok empate")) {
+					break;
+				}
+			}
+			request(in, out, "posicao");
+			request(in, out, "sair");
+		}
+	}
+	
+	// Envia um comando e espera a resposta, medindo a latência
+	private static String request(BufferedReader in, BufferedWriter out, String command) throws IOException {
+		long start = System.nanoTime();
+		out.write(command);
+		out.write('\n');
+		out.flush();
+		String response = in.readLine();
+		long latency = System.nanoTime() - start;
+		if (response == null) {
+			throw new IOException("Conexão encerrada pelo servidor");
+		}
+		if (response.startsWith("erro")) {
+			errors.incrementAndGet();
+		}
+		commands.incrementAndGet();
+		totalLatency.addAndGet(latency);
+		maxLatency.accumulateAndGet(latency, Math::max);
+		return response;
+	}
+	
+}
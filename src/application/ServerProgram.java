@@ -0,0 +1,37 @@
+package application;
+
+import java.io.IOException;
+import java.util.Scanner;
+
+import chess.server.GameServer;
+
+/* Programa do servidor de partidas simultâneas (protocolo descrito em chess.server.GameSession)
+ * Uso: java application/ServerProgram [porta]
+ * O servidor atende conexões locais até ser digitado "sair"; "estado" imprime as sessões, partidas e comandos atendidos
+ */
+public class ServerProgram {
+	
+	public static void main(String[] args) {
+		try (GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT)) {
+			server.start();
+			System.out.println("Servidor na porta " + server.getPort());
+			
+			Scanner sc = new Scanner(System.in);
+			while (sc.hasNextLine()) {
+				String line = sc.nextLine().trim();
+				if (line.equals("sair")) {
+					break;
+				}
+				if (line.equals("estado")) {
+					System.out.println("Sessões: " + server.getSessionCount() + ", partidas: " + server.getGameCount()
+							+ ", comandos: " + server.getCommandCount());
+				}
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Porta inválida: " + args[0]);
+		} catch (IOException e) {
+			System.out.println("Erro no servidor: " + e.getMessage());
+		}
+	}
+	
+}
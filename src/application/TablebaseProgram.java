@@ -0,0 +1,66 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+import chess.engine.Tablebase;
+import chess.engine.TablebaseGenerator;
+
+/* Programa de linha de comando para as tabelas de finais
+ * Uso: java application/TablebaseProgram gerar <diretório> <materiais...> (por exemplo "KQvKR KPvK")
+ *      java application/TablebaseProgram consultar <diretório> fen "<FEN>"
+ */
+public class TablebaseProgram {
+	
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.out.println("Uso: TablebaseProgram gerar <diretório> <materiais...> | consultar <diretório> fen \"<FEN>\"");
+			return;
+		}
+		
+		try (Tablebase tablebase = new Tablebase(Paths.get(args[1]))) {
+			if (args[0].equals("gerar")) {
+				TablebaseGenerator generator = new TablebaseGenerator(tablebase, System.out);
+				long start = System.nanoTime();
+				for (int i = 2; i < args.length; i++) {
+					generator.generate(args[i]);
+				}
+				System.out.printf("Tempo: %.3f s%n", (System.nanoTime() - start) / 1e9);
+			}
+			else if (args[0].equals("consultar") && args.length > 3 && args[2].equals("fen")) {
+				ChessMatch chessMatch = Fen.parse(args[3]);
+				int value = tablebase.probe(chessMatch);
+				if (value == Tablebase.NOT_FOUND) {
+					System.out.println("Posição fora das tabelas");
+				}
+				else {
+					if (value > 0) {
+						System.out.println("Vitória do jogador da vez em " + Tablebase.plies(value) + " meios-lances");
+					}
+					else if (value < 0) {
+						System.out.println("Derrota do jogador da vez em " + Tablebase.plies(value) + " meios-lances");
+					}
+					else {
+						System.out.println("Empate");
+					}
+					int move = tablebase.bestMove(chessMatch);
+					if (move != Move.NONE) {
+						System.out.println("Melhor lance: " + Move.toString(move));
+					}
+				}
+			}
+			else {
+				System.out.println("Comando inválido: " + args[0]);
+			}
+		} catch (IOException e) {
+			System.out.println("Erro ao acessar as tabelas: " + e.getMessage());
+		} catch (ChessException e) {
+			System.out.println(e.getMessage());
+		}
+	}
+	
+}
@@ -47,9 +47,13 @@ public class UI {
 	 * Lê a posição em String, recorta a letra e o número e instancia uma nova posição de Xadrez
 	 */
 	public static ChessPosition readChessPosition(Scanner sc) {
+		System.out.print(ANSI_WHITE);
+		return parseChessPosition(sc.nextLine());
+	}
+	
+	// Converte um texto como "e2" em uma posição de Xadrez
+	public static ChessPosition parseChessPosition(String s) {
 		try {
-			System.out.print(ANSI_WHITE);
-			String s = sc.nextLine();
 			char column = s.charAt(0);
 			int row = Integer.parseInt(s.substring(1));
 		
@@ -67,7 +71,9 @@ public class UI {
 		System.out.println();
 		System.out.println(ANSI_WHITE + "Turno: " + chessMatch.getTurn());
 		
-		if (!chessMatch.getCheckMate()) {
+		if (chessMatch.getDraw()) {
+			System.out.println("EMPATE POR " + drawReason(chessMatch) + "!");
+		} else if (!chessMatch.getCheckMate()) {
 			System.out.println(ANSI_WHITE + "Esperando jogador: " + chessMatch.getCurrentPlayer());
 			if (chessMatch.getCheck()) { 
 				System.out.println(chessMatch.getCurrentPlayer() + " ESTá EM XEQUE!");
@@ -78,6 +84,20 @@ public class UI {
 		}
 	}
 	
+	// Motivo do empate da partida, para ser impresso
+	private static String drawReason(ChessMatch chessMatch) {
+		if (chessMatch.getStalemate()) {
+			return "AFOGAMENTO";
+		}
+		if (chessMatch.isThreefoldRepetition()) {
+			return "TRIPLA REPETIÇÃO";
+		}
+		if (chessMatch.isFiftyMoveRule()) {
+			return "REGRA DOS CINQUENTA LANCES";
+		}
+		return "MATERIAL INSUFICIENTE";
+	}
+	
 	/* Imprime o tabuleiro de xadrez no console. 
 	* Percorre todas as linhas e colunas do tabuleiro e imprime a peça na posição atual.
 	*/
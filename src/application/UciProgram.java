@@ -0,0 +1,292 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.Move;
+import chess.engine.Engine;
+import chess.engine.OpeningBook;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Tablebase;
+import chess.engine.TranspositionTable;
+
+/* Interface UCI do motor, para ser usado por programas de torneio e interfaces gráficas pela entrada e saída padrão
+ * Uso: java application/UciProgram
+ * A leitura dos comandos e a busca ficam em threads separadas: enquanto a busca roda, os comandos continuam sendo lidos,
+ * e "stop" (ou "quit") interrompe a busca na hora, que responde com o melhor lance da última iteração completa
+ */
+public class UciProgram {
+	
+	private static final String NAME = "XadrezEmJava";
+	private static final String AUTHOR = "chess-system contributors";
+	
+	// Palavras-chave do comando "go", que encerram a lista de lances de "searchmoves"
+	private static final Set<String> GO_KEYWORDS = new HashSet<>(Arrays.asList("searchmoves", "ponder", "wtime", "btime", 
+			"winc", "binc", "movestogo", "depth", "nodes", "mate", "movetime", "infinite"));
+	
+	private final PrintStream out = new PrintStream(System.out, false, StandardCharsets.UTF_8);
+	private final Engine engine = new Engine();
+	private ChessMatch chessMatch = new ChessMatch();
+	private Thread searchThread;
+	
+	// Com "go infinite", o lance só é enviado depois de "stop", mesmo que a busca termine antes
+	private boolean waitingForStop;
+	
+	public static void main(String[] args) throws IOException {
+		new UciProgram().run();
+	}
+	
+	private void run() throws IOException {
+		engine.setListener(this::info);
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.equals("quit")) {
+				break;
+			}
+			try {
+				execute(line);
+			} catch (ChessException | IllegalArgumentException | IOException e) {
+				send("info string " + e.getMessage());
+			}
+		}
+		stopSearch();
+		engine.shutdown();
+	}
+	
+	private void execute(String line) throws IOException {
+		String[] tokens = line.split("\\s+");
+		switch (tokens[0]) {
+		case "uci":
+			send("id name " + NAME);
+			send("id author " + AUTHOR);
+			send("option name Hash type spin default " + Engine.DEFAULT_HASH_SIZE + " min 1 max " + TranspositionTable.MAX_SIZE);
+			send("option name Threads type spin default 1 min 1 max 256");
+			send("option name BookFile type string default <empty>");
+			send("option name TablebasePath type string default <empty>");
+			send("uciok");
+			break;
+		case "isready":
+			send("readyok");
+			break;
+		case "ucinewgame":
+			stopSearch();
+			engine.clearHash();
+			break;
+		case "setoption":
+			stopSearch();
+			setOption(line);
+			break;
+		case "position":
+			stopSearch();
+			position(tokens);
+			break;
+		case "go":
+			stopSearch();
+			go(tokens);
+			break;
+		case "stop":
+		case "ponderhit":
+			// O motor não continua a busca de "go ponder" com o relógio: o lance é enviado assim que o lance previsto é jogado
+			stopSearch();
+			break;
+		default:
+			// Comandos desconhecidos são ignorados, como pede o protocolo
+			break;
+		}
+	}
+	
+	// "setoption name <nome> value <valor>"
+	private void setOption(String line) throws IOException {
+		int nameStart = line.indexOf(" name ");
+		int valueStart = line.indexOf(" value ");
+		if (nameStart < 0) {
+			return;
+		}
+		String name = line.substring(nameStart + 6, (valueStart < 0) ? line.length() : valueStart).trim();
+		String value = (valueStart < 0) ? "" : line.substring(valueStart + 7).trim();
+		switch (name) {
+		case "Hash":
+			engine.setHashSize(Integer.parseInt(value));
+			break;
+		case "Threads":
+			engine.setThreads(Integer.parseInt(value));
+			break;
+		case "BookFile":
+			engine.setOpeningBook(value.isEmpty() || value.equals("<empty>") ? null : new OpeningBook(Paths.get(value)));
+			break;
+		case "TablebasePath":
+			engine.setTablebase(value.isEmpty() || value.equals("<empty>") ? null : new Tablebase(Paths.get(value)));
+			break;
+		default:
+			send("info string Opção desconhecida: " + name);
+		}
+	}
+	
+	// "position startpos|fen <FEN> [moves <lances...>]"
+	private void position(String[] tokens) {
+		int next = 1;
+		ChessMatch position;
+		if (tokens.length > 1 && tokens[1].equals("startpos")) {
+			position = new ChessMatch();
+			next = 2;
+		}
+		else if (tokens.length > 1 && tokens[1].equals("fen")) {
+			StringBuilder fen = new StringBuilder();
+			for (next = 2; next < tokens.length && !tokens[next].equals("moves"); next++) {
+				fen.append(tokens[next]).append(' ');
+			}
+			position = Fen.parse(fen.toString().trim());
+		}
+		else {
+			throw new ChessException("Comando position inválido");
+		}
+		if (next < tokens.length && tokens[next].equals("moves")) {
+			for (int i = next + 1; i < tokens.length; i++) {
+				position.makeMove(position.parseMove(tokens[i]));
+			}
+		}
+		chessMatch = position;
+	}
+	
+	/* "go [depth <n>] [movetime <ms>] [nodes <n>] [wtime <ms>] [btime <ms>] [winc <ms>] [binc <ms>] [movestogo <n>] [infinite]"
+	 * Com o tempo restante do relógio, o tempo do lance é uma fração dele mais a maior parte do incremento.
+	 * "go ponder" busca sem limite de tempo até "stop" ou "ponderhit", como "infinite"; "mate" e a lista de lances de
+	 * "searchmoves" são aceitos e ignorados (todos os lances da raiz são buscados)
+	 */
+	private void go(String[] tokens) {
+		int depth = 0;
+		long moveTime = 0;
+		long nodes = 0;
+		long whiteTime = 0;
+		long blackTime = 0;
+		long whiteIncrement = 0;
+		long blackIncrement = 0;
+		int movesToGo = 0;
+		boolean infinite = false;
+		boolean ponder = false;
+		for (int i = 1; i < tokens.length; i++) {
+			switch (tokens[i]) {
+			case "infinite": infinite = true; break;
+			case "ponder": ponder = true; break;
+			case "depth": depth = (int)number(tokens, ++i); break;
+			case "movetime": moveTime = number(tokens, ++i); break;
+			case "nodes": nodes = number(tokens, ++i); break;
+			case "wtime": whiteTime = number(tokens, ++i); break;
+			case "btime": blackTime = number(tokens, ++i); break;
+			case "winc": whiteIncrement = number(tokens, ++i); break;
+			case "binc": blackIncrement = number(tokens, ++i); break;
+			case "movestogo": movesToGo = (int)number(tokens, ++i); break;
+			case "mate": number(tokens, ++i); break;
+			case "searchmoves":
+				while (i + 1 < tokens.length && !GO_KEYWORDS.contains(tokens[i + 1])) {
+					i++;
+				}
+				break;
+			default: break;
+			}
+		}
+		boolean white = chessMatch.getCurrentPlayer() == Color.BRANCO;
+		long time = white ? whiteTime : blackTime;
+		long increment = white ? whiteIncrement : blackIncrement;
+		if (ponder) {
+			// O relógio ainda é do adversário: a busca só termina com "stop" ou "ponderhit"
+			moveTime = 0;
+			time = 0;
+			infinite = true;
+		}
+		if (moveTime == 0 && time > 0) {
+			long share = time / ((movesToGo > 0) ? movesToGo + 1 : 30) + increment * 3 / 4;
+			moveTime = Math.max(1, Math.min(share, time / 2));
+		}
+		
+		SearchLimits limits = new SearchLimits(depth, moveTime, nodes);
+		ChessMatch position = chessMatch;
+		waitingForStop = infinite;
+		engine.newSearch();
+		searchThread = new Thread(() -> {
+			SearchResult result = engine.think(position, limits);
+			awaitStop();
+			int[] pv = result.getPrincipalVariation();
+			String bestMove = (result.getBestMove() == Move.NONE) ? "0000" : Move.toString(result.getBestMove());
+			send("bestmove " + bestMove + ((pv.length > 1) ? " ponder " + Move.toString(pv[1]) : ""));
+		}, "busca-uci");
+		searchThread.start();
+	}
+	
+	// Valor numérico de um parâmetro do comando "go"
+	private static long number(String[] tokens, int i) {
+		if (i >= tokens.length) {
+			throw new ChessException("Valor ausente no comando go: " + tokens[i - 1]);
+		}
+		return Long.parseLong(tokens[i]);
+	}
+	
+	// Interrompe a busca em andamento e espera ela responder com "bestmove"
+	private void stopSearch() {
+		if (searchThread == null) {
+			return;
+		}
+		engine.stop();
+		synchronized (this) {
+			waitingForStop = false;
+			notifyAll();
+		}
+		try {
+			searchThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		searchThread = null;
+	}
+	
+	private synchronized void awaitStop() {
+		while (waitingForStop) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	// Linha "info" de uma iteração completa da busca
+	private void info(SearchResult result) {
+		StringBuilder line = new StringBuilder("info depth ").append(result.getDepth());
+		if (result.isMateScore()) {
+			line.append(" score mate ").append(result.getMateIn());
+		}
+		else {
+			line.append(" score cp ").append(result.getScore());
+		}
+		line.append(" nodes ").append(result.getNodes());
+		line.append(" nps ").append(result.getNodesPerSecond());
+		line.append(" time ").append(result.getTime());
+		line.append(" hashfull ").append(engine.getTranspositionTable().hashfull());
+		line.append(" pv");
+		for (int move : result.getPrincipalVariation()) {
+			line.append(' ').append(Move.toString(move));
+		}
+		send(line.toString());
+	}
+	
+	private synchronized void send(String line) {
+		out.println(line);
+		out.flush();
+	}
+	
+}
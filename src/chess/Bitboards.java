@@ -0,0 +1,256 @@
+package chess;
+
+import boardgame.Position;
+
+/* Utilitários para a representação do tabuleiro em bitboards (um long de 64 bits por conjunto de casas)
+ * A casa de índice 0 é a8 e a casa 63 é h1, seguindo a mesma ordem de linhas e colunas da matriz do tabuleiro
+ * (índice = linha * 8 + coluna)
+ */
+public final class Bitboards {
+	
+	public static final long FILE_A = 0x0101010101010101L;
+	public static final long FILE_B = FILE_A << 1;
+	public static final long FILE_G = FILE_A << 6;
+	public static final long FILE_H = FILE_A << 7;
+	public static final long RANK_8 = 0xFFL;
+	public static final long RANK_1 = RANK_8 << 56;
+	
+	// Casas claras do tabuleiro (a8, c8, ..., h1), usadas para comparar as cores dos Bispos
+	public static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+	
+	/* Tabelas pré-calculadas entre pares de casas alinhadas (mesma linha, coluna ou diagonal):
+	 * BETWEEN guarda as casas entre as duas (exclusive) e LINE a linha inteira que passa pelas duas
+	 */
+	private static final long[][] BETWEEN = new long[64][64];
+	private static final long[][] LINE = new long[64][64];
+	
+	/* Tabelas de ataques das peças deslizantes por "magic bitboards": para cada casa, as casas que podem bloquear a peça
+	 * (a máscara, sem as bordas do tabuleiro), um número mágico e o deslocamento. As peças da ocupação dentro da máscara,
+	 * multiplicadas pelo número mágico e deslocadas, dão o índice dos ataques da casa na tabela, sem percorrer os raios.
+	 * Os números mágicos foram encontrados por sorteio (números com poucos bits ligados, testados contra todas as
+	 * ocupações da máscara); as tabelas são montadas com eles ao carregar a classe
+	 */
+	private static final long[] ROOK_MAGICS = {
+			0x0080001080204000L, 0x0040004020001001L, 0x01801000A0008008L, 0x4100200810000500L,
+			0x0900021085004800L, 0x02000803A2001410L, 0x0480010002000080L, 0x0100032200944100L,
+			0x0008800080400020L, 0x1840402010004000L, 0x0402801000200081L, 0x4000800800801000L,
+			0x0000800400080082L, 0x200A001002000448L, 0x2203000100040E00L, 0xE002000102108044L,
+			0x008000C000C02000L, 0x8000868020004000L, 0x4008410020010010L, 0x0009010020081002L,
+			0x1D12020010200804L, 0x8001080104401020L, 0x180C040010591A08L, 0x04515A0000408524L,
+			0x4802802580084000L, 0x0060200080400080L, 0x0000820200201040L, 0x0000880480100081L,
+			0x0540080080800400L, 0x0000040080020080L, 0x0100280400024110L, 0x0C0A290600188044L,
+			0x0004400084800420L, 0x4010002012400044L, 0x0000200082801000L, 0x0000801801801002L,
+			0x0100800400800802L, 0x0100800400800200L, 0x4040020184000870L, 0x0400808062001104L,
+			0x8022C00080B28000L, 0x0100402010004008L, 0x0040102001010040L, 0x2218080010008080L,
+			0x0403001008030004L, 0x4002002010040400L, 0x8000300182040048L, 0x00060910A8420004L,
+			0x9246046055008200L, 0x2001008020401500L, 0x0026082040108200L, 0x2020800802100480L,
+			0x0028008004000880L, 0x5040020004008080L, 0x4082085021820400L, 0x6100050400408600L,
+			0x0002122080044101L, 0x00001A2081004202L, 0x0800084100102001L, 0x010300100104A009L,
+			0x0002000410210802L, 0x4841000804000203L, 0x0D40011040880204L, 0x041003814B012402L };
+	
+	private static final long[] BISHOP_MAGICS = {
+			0x20202004C5004482L, 0x2290442800843140L, 0x081014004042C381L, 0x0011041480282C05L,
+			0x1254104420202945L, 0x0087100805028050L, 0x0400611010104000L, 0x0800404210100200L,
+			0x1401850408080900L, 0x0800028404008200L, 0x0080100102082002L, 0x0080040420814000L,
+			0x0020845040188000L, 0x0001090C20048840L, 0x0000A40911982008L, 0x9CB06086010D2100L,
+			0x0021000808A10800L, 0x220220201C240280L, 0x0202000102040100L, 0x0104018824001002L,
+			0x0206020402110000L, 0x0002800B00600200L, 0x0822000908424200L, 0x4500210100821000L,
+			0x0004040222202400L, 0x01300C20904D8201L, 0x720A011028044C00L, 0x0040040020410020L,
+			0x004C08202C002010L, 0x00C8020000208400L, 0x040242401208024AL, 0x01C2060000209200L,
+			0x0010082111040403L, 0x1421086000880104L, 0x3A00210400C04408L, 0x2B40200804090104L,
+			0x82C0002020020080L, 0x2800880080231004L, 0x0221044400008204L, 0x0028009901082120L,
+			0x0018041008440400L, 0x0005080842048408L, 0x0400101804014800L, 0x004A10201104080DL,
+			0x4000A40810100600L, 0x0002200041010080L, 0x0830140AC1844407L, 0x0010009101000840L,
+			0x4100491010120010L, 0x0000510090100008L, 0x0410820052081070L, 0x0900300442021300L,
+			0x3004001002088400L, 0x0000102001011000L, 0x8831041004024410L, 0x1004010822068002L,
+			0x0000202A10104800L, 0x0010010082012002L, 0x4000000042084400L, 0x000200511046080CL,
+			0x0200440004208200L, 0x0000048508100100L, 0x0040082004041460L, 0x0008010404040622L };
+	
+	private static final long[] ROOK_MASKS = new long[64];
+	private static final int[] ROOK_SHIFTS = new int[64];
+	private static final int[] ROOK_OFFSETS = new int[64];
+	private static final long[] ROOK_TABLE = new long[102400];
+	
+	private static final long[] BISHOP_MASKS = new long[64];
+	private static final int[] BISHOP_SHIFTS = new int[64];
+	private static final int[] BISHOP_OFFSETS = new int[64];
+	private static final long[] BISHOP_TABLE = new long[5248];
+	
+	// Ataques de Cavalo, Rei e Peão (por cor) a partir de cada casa, pré-calculados a partir das versões por conjunto
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+	private static final long[] KING_ATTACKS = new long[64];
+	private static final long[][] PAWN_ATTACKS = new long[2][64];
+	
+	static {
+		for (int a = 0; a < 64; a++) {
+			for (int b = 0; b < 64; b++) {
+				if (a == b) {
+					continue;
+				}
+				int rowStep = Integer.signum(row(b) - row(a));
+				int columnStep = Integer.signum(column(b) - column(a));
+				boolean aligned = row(a) == row(b) || column(a) == column(b) 
+						|| Math.abs(row(b) - row(a)) == Math.abs(column(b) - column(a));
+				if (!aligned) {
+					continue;
+				}
+				BETWEEN[a][b] = ray(a, bit(b), rowStep, columnStep) & ~bit(b);
+				LINE[a][b] = ray(a, 0L, rowStep, columnStep) | ray(a, 0L, -rowStep, -columnStep) | bit(a);
+			}
+		}
+		
+		initMagics(true, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_TABLE);
+		initMagics(false, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_TABLE);
+		
+		for (int square = 0; square < 64; square++) {
+			KNIGHT_ATTACKS[square] = knightAttacks(bit(square));
+			KING_ATTACKS[square] = kingAttacks(bit(square));
+			for (Color color : Color.values()) {
+				PAWN_ATTACKS[color.ordinal()][square] = pawnAttacks(color, bit(square));
+			}
+		}
+	}
+	
+	/* Monta as tabelas de uma peça deslizante: para cada casa, enumera todos os subconjuntos da máscara (carry-rippler)
+	 * e grava os ataques de cada um, calculados pelos raios, no índice dado pelo número mágico
+	 */
+	private static void initMagics(boolean rook, long[] masks, long[] magics, int[] shifts, int[] offsets, long[] table) {
+		int offset = 0;
+		for (int square = 0; square < 64; square++) {
+			long edges = ((RANK_1 | RANK_8) & ~(RANK_8 << (row(square) * 8))) | ((FILE_A | FILE_H) & ~(FILE_A << column(square)));
+			long mask = slidingAttacks(rook, square, 0L) & ~edges;
+			int bits = Long.bitCount(mask);
+			masks[square] = mask;
+			shifts[square] = 64 - bits;
+			offsets[square] = offset;
+			long subset = 0;
+			do {
+				int index = offset + (int)((subset * magics[square]) >>> shifts[square]);
+				long attacks = slidingAttacks(rook, square, subset);
+				if (table[index] != 0 && table[index] != attacks) {
+					throw new IllegalStateException("Número mágico inválido para a casa " + square);
+				}
+				table[index] = attacks;
+				subset = (subset - mask) & mask;
+			} while (subset != 0);
+			offset += 1 << bits;
+		}
+	}
+	
+	// Casas entre duas casas alinhadas, sem incluir as duas (vazio se não estiverem alinhadas)
+	public static long between(int a, int b) {
+		return BETWEEN[a][b];
+	}
+	
+	// Linha, coluna ou diagonal inteira que passa pelas duas casas (vazio se não estiverem alinhadas)
+	public static long line(int a, int b) {
+		return LINE[a][b];
+	}
+	
+	// Converte uma posição de matriz para o índice da casa no bitboard
+	public static int square(Position position) {
+		return square(position.getRow(), position.getColumn());
+	}
+	
+	public static int square(int row, int column) {
+		return row * 8 + column;
+	}
+	
+	public static int row(int square) {
+		return square >>> 3;
+	}
+	
+	public static int column(int square) {
+		return square & 7;
+	}
+	
+	public static long bit(int square) {
+		return 1L << square;
+	}
+	
+	// Retorna o índice da primeira casa ocupada do bitboard (deve ser chamado apenas com bitboards não vazios)
+	public static int firstSquare(long bitboard) {
+		return Long.numberOfTrailingZeros(bitboard);
+	}
+	
+	// Ataques de Cavalo calculados por deslocamentos, descartando as casas que "dão a volta" no tabuleiro
+	public static long knightAttacks(long knights) {
+		long l1 = (knights >>> 1) & ~FILE_H;
+		long l2 = (knights >>> 2) & ~(FILE_G | FILE_H);
+		long r1 = (knights << 1) & ~FILE_A;
+		long r2 = (knights << 2) & ~(FILE_A | FILE_B);
+		long h1 = l1 | r1;
+		long h2 = l2 | r2;
+		return (h1 << 16) | (h1 >>> 16) | (h2 << 8) | (h2 >>> 8);
+	}
+	
+	// Ataques de Rei: as oito casas vizinhas
+	public static long kingAttacks(long kings) {
+		long k = kings | ((kings >>> 1) & ~FILE_H) | ((kings << 1) & ~FILE_A);
+		return (k | (k << 8) | (k >>> 8)) & ~kings;
+	}
+	
+	// Ataques de Peão: as brancas capturam em direção à linha 0 (oitava fileira), as pretas em direção à linha 7
+	public static long pawnAttacks(Color color, long pawns) {
+		if (color == Color.BRANCO) {
+			return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+		}
+		return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+	}
+	
+	// Ataques de Cavalo, Rei e Peão de uma única casa, consultados nas tabelas
+	public static long knightAttacksFrom(int square) {
+		return KNIGHT_ATTACKS[square];
+	}
+	
+	public static long kingAttacksFrom(int square) {
+		return KING_ATTACKS[square];
+	}
+	
+	public static long pawnAttacksFrom(Color color, int square) {
+		return PAWN_ATTACKS[color.ordinal()][square];
+	}
+	
+	// Ataques de Torre a partir de uma casa, parando na primeira peça encontrada em cada direção (uma consulta à tabela)
+	public static long rookAttacks(int square, long occupied) {
+		return ROOK_TABLE[ROOK_OFFSETS[square] + (int)(((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+	}
+	
+	// Ataques de Bispo a partir de uma casa, parando na primeira peça encontrada em cada diagonal (uma consulta à tabela)
+	public static long bishopAttacks(int square, long occupied) {
+		return BISHOP_TABLE[BISHOP_OFFSETS[square] 
+				+ (int)(((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+	}
+	
+	public static long queenAttacks(int square, long occupied) {
+		return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+	}
+	
+	// Ataques de Torre ou Bispo calculados percorrendo os raios, usados apenas para montar as tabelas
+	private static long slidingAttacks(boolean rook, int square, long occupied) {
+		if (rook) {
+			return ray(square, occupied, -1, 0) | ray(square, occupied, 1, 0) 
+					| ray(square, occupied, 0, -1) | ray(square, occupied, 0, 1);
+		}
+		return ray(square, occupied, -1, -1) | ray(square, occupied, -1, 1) 
+				| ray(square, occupied, 1, -1) | ray(square, occupied, 1, 1);
+	}
+	
+	// Percorre uma direção a partir de uma casa até sair do tabuleiro ou encontrar uma peça (que é incluída)
+	private static long ray(int square, long occupied, int rowStep, int columnStep) {
+		long attacks = 0L;
+		int row = row(square) + rowStep;
+		int column = column(square) + columnStep;
+		while (row >= 0 && row < 8 && column >= 0 && column < 8) {
+			long b = bit(square(row, column));
+			attacks |= b;
+			if ((occupied & b) != 0) {
+				break;
+			}
+			row += rowStep;
+			column += columnStep;
+		}
+		return attacks;
+	}
+	
+}
@@ -0,0 +1,198 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.Piece;
+import boardgame.Position;
+
+/* Tabuleiro de Xadrez 8x8 que, além da matriz de peças da classe Board (usada pela interface),
+ * mantém a ocupação das casas em bitboards (um long por cor e tipo de peça) e listas com as casas das peças
+ * de cada cor e tipo. Os bitboards e as listas são atualizados sempre que uma peça é colocada ou removida do tabuleiro
+ */
+public class ChessBoard extends Board {
+	
+	private ChessPiece[] squares = new ChessPiece[64];
+	private long[] pieceBitboards = new long[12];
+	private long[] colorBitboards = new long[2];
+	private long occupied;
+	
+	// Parte da chave de Zobrist correspondente às peças e suas casas, atualizada a cada peça colocada ou removida
+	private long key;
+	
+	// Parte da chave correspondente apenas aos peões, que identifica a estrutura de peões (usada pela tabela de peões)
+	private long pawnKey;
+	
+	/* Material e tabelas de casas da avaliação (meio-jogo e final, do ponto de vista das brancas) e fase da partida,
+	 * somados a cada peça colocada ou removida (ver Evaluation)
+	 */
+	private int middlegameScore;
+	private int endgameScore;
+	private int phase;
+	
+	// Casas dos Reis de cada cor (-1 quando não há Rei no tabuleiro), atualizadas junto com os bitboards
+	private int[] kingSquares = {-1, -1};
+	
+	// Vetor reutilizado para os lances de uma única peça (a Dama, no máximo, tem 27)
+	private int[] pieceMoves = new int[32];
+	
+	private Position[] positions = new Position[64];
+	
+	/* Listas de peças por cor e tipo: as casas das peças de cada lista e, para cada casa ocupada, o índice dela na lista.
+	 * Colocar e remover uma peça custa tempo constante: a peça removida dá lugar à última da lista.
+	 * Cada lista comporta o tabuleiro inteiro, já que uma FEN pode descrever posições com qualquer quantidade de peças
+	 */
+	private int[][] pieceLists = new int[12][64];
+	private int[] pieceCounts = new int[12];
+	private int[] listIndex = new int[64];
+	
+	public ChessBoard() {
+		super(8, 8);
+		for (int square = 0; square < 64; square++) {
+			positions[square] = new Position(Bitboards.row(square), Bitboards.column(square));
+		}
+	}
+	
+	// Índice do bitboard de uma cor e tipo de peça
+	private static int index(Color color, PieceType type) {
+		return color.ordinal() * 6 + type.ordinal();
+	}
+	
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		super.placePiece(piece, position);
+		ChessPiece p = (ChessPiece)piece;
+		int square = Bitboards.square(position);
+		long b = Bitboards.bit(square);
+		squares[square] = p;
+		pieceBitboards[index(p.getColor(), p.getType())] |= b;
+		colorBitboards[p.getColor().ordinal()] |= b;
+		occupied |= b;
+		key ^= Zobrist.piece(p.getColor(), p.getType(), square);
+		if (p.getType() == PieceType.PEAO) {
+			pawnKey ^= Zobrist.piece(p.getColor(), p.getType(), square);
+		}
+		middlegameScore += Evaluation.middlegame(p.getColor(), p.getType(), square);
+		endgameScore += Evaluation.endgame(p.getColor(), p.getType(), square);
+		phase += Evaluation.phase(p.getType());
+		int list = index(p.getColor(), p.getType());
+		listIndex[square] = pieceCounts[list];
+		pieceLists[list][pieceCounts[list]++] = square;
+		if (p.getType() == PieceType.REI) {
+			kingSquares[p.getColor().ordinal()] = square;
+		}
+	}
+	
+	@Override
+	public Piece removePiece(Position position) {
+		Piece piece = super.removePiece(position);
+		if (piece != null) {
+			ChessPiece p = (ChessPiece)piece;
+			int square = Bitboards.square(position);
+			long b = ~Bitboards.bit(square);
+			squares[square] = null;
+			pieceBitboards[index(p.getColor(), p.getType())] &= b;
+			colorBitboards[p.getColor().ordinal()] &= b;
+			occupied &= b;
+			key ^= Zobrist.piece(p.getColor(), p.getType(), square);
+			if (p.getType() == PieceType.PEAO) {
+				pawnKey ^= Zobrist.piece(p.getColor(), p.getType(), square);
+			}
+			middlegameScore -= Evaluation.middlegame(p.getColor(), p.getType(), square);
+			endgameScore -= Evaluation.endgame(p.getColor(), p.getType(), square);
+			phase -= Evaluation.phase(p.getType());
+			int list = index(p.getColor(), p.getType());
+			int last = pieceLists[list][--pieceCounts[list]];
+			pieceLists[list][listIndex[square]] = last;
+			listIndex[last] = listIndex[square];
+			if (p.getType() == PieceType.REI && kingSquares[p.getColor().ordinal()] == square) {
+				kingSquares[p.getColor().ordinal()] = -1;
+			}
+		}
+		return piece;
+	}
+	
+	/* Sobrecargas para colocar e remover peças pelo índice da casa, usadas nos lances codificados
+	 * As posições de cada casa são criadas uma única vez por tabuleiro e compartilhadas pelas peças
+	 */
+	public void placePiece(ChessPiece piece, int square) {
+		placePiece(piece, positions[square]);
+	}
+	
+	public ChessPiece removePiece(int square) {
+		return (ChessPiece)removePiece(positions[square]);
+	}
+	
+	// Acesso direto à peça de uma casa pelo índice do bitboard, sem as verificações de limite da matriz
+	public ChessPiece pieceAt(int square) {
+		return squares[square];
+	}
+	
+	int[] pieceMoveBuffer() {
+		return pieceMoves;
+	}
+	
+	// Quantidade de peças de uma cor e tipo no tabuleiro
+	public int pieceCount(Color color, PieceType type) {
+		return pieceCounts[index(color, type)];
+	}
+	
+	// Casa da i-ésima peça de uma cor e tipo (de 0 a pieceCount - 1; a ordem muda quando peças são removidas)
+	public int pieceSquare(Color color, PieceType type, int i) {
+		return pieceLists[index(color, type)][i];
+	}
+	
+	public long getKey() {
+		return key;
+	}
+	
+	public long getPawnKey() {
+		return pawnKey;
+	}
+	
+	public int getMiddlegameScore() {
+		return middlegameScore;
+	}
+	
+	public int getEndgameScore() {
+		return endgameScore;
+	}
+	
+	// Fase da partida pelas peças restantes: Evaluation.MAX_PHASE com todas as peças iniciais, 0 com apenas Reis e peões
+	public int getPhase() {
+		return phase;
+	}
+	
+	public int kingSquare(Color color) {
+		return kingSquares[color.ordinal()];
+	}
+	
+	public long pieces(Color color, PieceType type) {
+		return pieceBitboards[index(color, type)];
+	}
+	
+	public long occupancy(Color color) {
+		return colorBitboards[color.ordinal()];
+	}
+	
+	public long occupied() {
+		return occupied;
+	}
+	
+	/* Retorna o bitboard das peças de uma cor que atacam uma casa, considerando uma ocupação dada
+	 * (a ocupação pode ser diferente da atual, por exemplo ao retirar o Rei para testar as casas de fuga)
+	 */
+	public long attackersTo(int square, Color by, long occupied) {
+		Color defender = (by == Color.BRANCO) ? Color.PRETO : Color.BRANCO;
+		long queens = pieces(by, PieceType.DAMA);
+		return (Bitboards.pawnAttacksFrom(defender, square) & pieces(by, PieceType.PEAO))
+				| (Bitboards.knightAttacksFrom(square) & pieces(by, PieceType.CAVALO))
+				| (Bitboards.kingAttacksFrom(square) & pieces(by, PieceType.REI))
+				| (Bitboards.bishopAttacks(square, occupied) & (pieces(by, PieceType.BISPO) | queens))
+				| (Bitboards.rookAttacks(square, occupied) & (pieces(by, PieceType.TORRE) | queens));
+	}
+	
+	// Verifica se uma casa é atacada por alguma peça da cor dada
+	public boolean isSquareAttacked(int square, Color by) {
+		return attackersTo(square, by, occupied) != 0;
+	}
+	
+}
@@ -1,10 +1,9 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.Bishop;
@@ -16,28 +15,171 @@ import chess.pieces.Rook;
 
 public class ChessMatch {
 
+	private static final Color[] COLORS = Color.values();
+	
 	private int turn;
 	private Color currentPlayer;
-	private Board board;
+	private ChessBoard board;
 	private boolean check;
 	private boolean checkMate;
+	private boolean stalemate;
 	private ChessPiece enPassantVulnerable;
 	private ChessPiece promoted;
 	
-	private List<Piece> piecesOnTheBoard = new ArrayList<>();
+	// Meios-lances desde a última captura ou lance de peão (regra dos cinquenta lances)
+	private int halfmoveClock;
+	
 	private List<Piece> capturedPieces = new ArrayList<>();
 	
-	/* Instancia um novo tabuleiro de dimensões 8x8 e chama a função "initialSetup", 
+	// Gerador de lances legais e vetor de lances reutilizado pelas validações e pelo teste de xeque-mate
+	private MoveGenerator moveGenerator;
+	private int[] moveBuffer = new int[Move.MAX_MOVES];
+	
+	/* Pilha de histórico dos lances feitos por "makeMove", em vetores paralelos para não criar objetos por lance:
+	 * o lance, o xeque, xeque-mate, afogamento e contador de meios-lances anteriores, a peça capturada,
+	 * o peão promovido, o peão vulnerável ao En Passant e a peça promovida anteriores, e a chave da posição anterior
+	 * (usada para detectar repetições)
+	 */
+	private int[] historyMoves = new int[64];
+	private int[] historyState = new int[64];
+	private ChessPiece[] historyCaptured = new ChessPiece[64];
+	private ChessPiece[] historyPromotedPawn = new ChessPiece[64];
+	private ChessPiece[] historyEnPassant = new ChessPiece[64];
+	private ChessPiece[] historyPromoted = new ChessPiece[64];
+	private long[] historyKeys = new long[64];
+	private int historySize;
+	
+	/* Início dos lances que podem ser desfeitos. Em uma cópia da partida, as posições anteriores da pilha guardam apenas
+	 * as chaves das posições da partida original desde o último lance irreversível, para detectar as repetições
+	 */
+	private int historyStart;
+	
+	/* Pilha dos lances desfeitos por "undo", que podem ser refeitos por "redo", com a chave da posição em que cada um
+	 * foi desfeito: um lance só é refeito se a partida ainda está nessa posição
+	 */
+	private int[] redoMoves = new int[16];
+	private long[] redoKeys = new long[16];
+	private int redoSize;
+	
+	/* Instancia um novo tabuleiro de dimensões 8x8 (com a representação em bitboards) e chama a função "initialSetup", 
 	 * que posiciona as peças inicias no tabuleiro, além de dar o primeiro lance para
 	 * as brancas
 	 */
 	public ChessMatch() {
-		board = new Board(8, 8);
+		board = new ChessBoard();
+		moveGenerator = new MoveGenerator(this, board);
 		turn = 1;
 		currentPlayer = Color.BRANCO;
 		initialSetup();
 	}
 	
+	/* Cria uma cópia independente de uma partida, com um tabuleiro e peças próprios (cada peça ligada à nova partida)
+	 * Usada para dar a cada thread de busca a sua própria posição. Do histórico, só são copiadas as chaves das posições
+	 * desde o último lance irreversível, para que a cópia detecte as mesmas repetições; ela não pode desfazer lances
+	 * feitos antes dela
+	 */
+	public ChessMatch(ChessMatch other) {
+		board = new ChessBoard();
+		moveGenerator = new MoveGenerator(this, board);
+		turn = other.turn;
+		currentPlayer = other.currentPlayer;
+		check = other.check;
+		checkMate = other.checkMate;
+		stalemate = other.stalemate;
+		halfmoveClock = other.halfmoveClock;
+		
+		int keys = Math.min(other.halfmoveClock, other.historySize);
+		if (keys >= historyKeys.length) {
+			growHistory(Integer.highestOneBit(keys) * 2);
+		}
+		System.arraycopy(other.historyKeys, other.historySize - keys, historyKeys, 0, keys);
+		historySize = keys;
+		historyStart = keys;
+		
+		long pieces = other.board.occupied();
+		while (pieces != 0) {
+			int square = Bitboards.firstSquare(pieces);
+			ChessPiece original = other.board.pieceAt(square);
+			ChessPiece piece = newPiece(original.getType(), original.getColor());
+			piece.setMoveCount(original.getMoveCount());
+			board.placePiece(piece, square);
+			if (original == other.enPassantVulnerable) {
+				enPassantVulnerable = piece;
+			}
+			if (original == other.promoted) {
+				promoted = piece;
+			}
+			pieces &= pieces - 1;
+		}
+		for (Piece p : other.capturedPieces) {
+			ChessPiece original = (ChessPiece)p;
+			capturedPieces.add(newPiece(original.getType(), original.getColor()));
+		}
+	}
+	
+	/* Cria uma partida a partir de uma fotografia da posição
+	 * Os contadores de movimento são reconstruídos para reproduzir os direitos de Roque (Rei e Torres nas casas iniciais)
+	 * e o avanço duplo dos peões (peões na fileira inicial); o xeque e o xeque-mate são recalculados
+	 */
+	public ChessMatch(ChessSnapshot snapshot) {
+		board = new ChessBoard();
+		moveGenerator = new MoveGenerator(this, board);
+		turn = snapshot.getTurn();
+		currentPlayer = snapshot.getCurrentPlayer();
+		halfmoveClock = snapshot.getHalfmoveClock();
+		
+		int rights = snapshot.getCastlingRights();
+		for (int square = 0; square < 64; square++) {
+			PieceType type = snapshot.getType(square);
+			if (type == null) {
+				continue;
+			}
+			Color color = snapshot.getColor(square);
+			ChessPiece piece = newPiece(type, color);
+			piece.setMoveCount(initialMoveCount(piece, square, rights));
+			board.placePiece(piece, square);
+		}
+		if (snapshot.getEnPassantSquare() >= 0) {
+			enPassantVulnerable = board.pieceAt(snapshot.getEnPassantSquare());
+		}
+		check = testCheck(currentPlayer);
+		checkMate = testCheckMate(currentPlayer);
+		stalemate = testStalemate(currentPlayer);
+	}
+	
+	/* Contador de movimento de uma peça recriada a partir dos direitos de Roque:
+	 * 0 para Reis e Torres que ainda podem rocar e para peões na fileira inicial, 1 para os demais
+	 */
+	private static int initialMoveCount(ChessPiece piece, int square, int rights) {
+		boolean white = piece.getColor() == Color.BRANCO;
+		switch (piece.getType()) {
+		case PEAO:
+			return (Bitboards.row(square) == (white ? 6 : 1)) ? 0 : 1;
+		case REI:
+			return (square == (white ? 60 : 4) && (rights & (white ? 3 : 12)) != 0) ? 0 : 1;
+		case TORRE:
+			if (square == (white ? 63 : 7)) return (rights & (white ? 1 : 4)) != 0 ? 0 : 1;
+			if (square == (white ? 56 : 0)) return (rights & (white ? 2 : 8)) != 0 ? 0 : 1;
+			return 1;
+		default:
+			return 0;
+		}
+	}
+	
+	// Cria uma fotografia imutável e compacta da posição atual
+	public ChessSnapshot snapshot() {
+		byte[] squares = new byte[64];
+		long pieces = board.occupied();
+		while (pieces != 0) {
+			int square = Bitboards.firstSquare(pieces);
+			ChessPiece piece = board.pieceAt(square);
+			squares[square] = ChessSnapshot.code(piece.getColor(), piece.getType());
+			pieces &= pieces - 1;
+		}
+		int enPassantSquare = (enPassantVulnerable != null) ? enPassantVulnerable.getSquare() : -1;
+		return new ChessSnapshot(squares, currentPlayer, castlingRights(), enPassantSquare, turn, halfmoveClock, getZobristKey());
+	}
+	
 	public int getTurn() {
 		return turn;
 	}
@@ -54,6 +196,64 @@ public class ChessMatch {
 		return checkMate;
 	}
 	
+	// Afogamento: o jogador da vez não está em xeque e não tem lances legais (testado junto com o xeque-mate)
+	public boolean getStalemate() {
+		return stalemate;
+	}
+	
+	/* Empate por afogamento, tripla repetição, regra dos cinquenta lances ou material insuficiente
+	 * Nenhum dos testes percorre o tabuleiro: a repetição compara as chaves do histórico, o contador de meios-lances
+	 * é mantido por "makeMove" e o material é contado pelas listas de peças do tabuleiro
+	 */
+	public boolean getDraw() {
+		return !checkMate && (stalemate || isFiftyMoveRule() || isThreefoldRepetition() || isInsufficientMaterial());
+	}
+	
+	// Cem meios-lances sem captura nem lance de peão
+	public boolean isFiftyMoveRule() {
+		return halfmoveClock >= 100;
+	}
+	
+	public boolean isThreefoldRepetition() {
+		return isRepetition(3);
+	}
+	
+	/* Verifica se a posição atual já ocorreu "times" vezes (contando a atual)
+	 * Só as posições desde o último lance irreversível (captura ou lance de peão) podem se repetir, e só as que têm
+	 * o mesmo jogador da vez, então as chaves do histórico são comparadas de dois em dois meios-lances
+	 */
+	public boolean isRepetition(int times) {
+		long key = getZobristKey();
+		int first = Math.max(0, historySize - halfmoveClock);
+		int count = 1;
+		for (int i = historySize - 2; i >= first; i -= 2) {
+			if (historyKeys[i] == key && ++count >= times) {
+				return true;
+			}
+		}
+		return count >= times;
+	}
+	
+	/* Material insuficiente para qualquer xeque-mate: só os Reis, Rei e uma peça menor contra o Rei,
+	 * ou apenas Bispos além dos Reis, todos em casas da mesma cor
+	 */
+	public boolean isInsufficientMaterial() {
+		int knights = 0;
+		int bishops = 0;
+		for (Color color : COLORS) {
+			if (board.pieceCount(color, PieceType.PEAO) + board.pieceCount(color, PieceType.TORRE) + board.pieceCount(color, PieceType.DAMA) > 0) {
+				return false;
+			}
+			knights += board.pieceCount(color, PieceType.CAVALO);
+			bishops += board.pieceCount(color, PieceType.BISPO);
+		}
+		if (knights + bishops <= 1) {
+			return true;
+		}
+		long bishopSquares = board.pieces(Color.BRANCO, PieceType.BISPO) | board.pieces(Color.PRETO, PieceType.BISPO);
+		return knights == 0 && ((bishopSquares & Bitboards.LIGHT_SQUARES) == 0 || (bishopSquares & ~Bitboards.LIGHT_SQUARES) == 0);
+	}
+	
 	public ChessPiece getEnPassantVulnerable() {
 		return enPassantVulnerable;
 	}
@@ -62,6 +262,65 @@ public class ChessMatch {
 		return promoted;
 	}
 	
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+	
+	// Tabuleiro com a representação em bitboards, usado pelo motor de busca para consultas rápidas da posição
+	public ChessBoard getChessBoard() {
+		return board;
+	}
+	
+	/* Chave de Zobrist de 64 bits que identifica a posição
+	 * A parte das peças é mantida pelo tabuleiro a cada peça colocada ou removida (em "makeMove" e "replacePromotedPiece"),
+	 * e a ela se somam o jogador da vez, os direitos de Roque e a coluna do En Passant, todos obtidos em tempo constante
+	 */
+	public long getZobristKey() {
+		long key = board.getKey() ^ Zobrist.side(currentPlayer) ^ Zobrist.castling(castlingRights());
+		int column = enPassantColumn();
+		if (column >= 0) {
+			key ^= Zobrist.enPassant(column);
+		}
+		return key;
+	}
+	
+	/* Direitos de Roque como máscara de bits, derivados do contador de movimentos dos Reis e Torres em suas casas iniciais:
+	 * 1 = roque pequeno das brancas, 2 = roque grande das brancas, 4 = roque pequeno das pretas, 8 = roque grande das pretas
+	 */
+	public int castlingRights() {
+		int rights = 0;
+		if (unmoved(60, Color.BRANCO, PieceType.REI)) {
+			if (unmoved(63, Color.BRANCO, PieceType.TORRE)) rights |= 1;
+			if (unmoved(56, Color.BRANCO, PieceType.TORRE)) rights |= 2;
+		}
+		if (unmoved(4, Color.PRETO, PieceType.REI)) {
+			if (unmoved(7, Color.PRETO, PieceType.TORRE)) rights |= 4;
+			if (unmoved(0, Color.PRETO, PieceType.TORRE)) rights |= 8;
+		}
+		return rights;
+	}
+	
+	// Verifica se há na casa uma peça da cor e tipo dados que ainda não se moveu
+	private boolean unmoved(int square, Color color, PieceType type) {
+		ChessPiece p = board.pieceAt(square);
+		return p != null && p.getColor() == color && p.getType() == type && p.getMoveCount() == 0;
+	}
+	
+	/* Coluna do peão vulnerável ao En Passant, ou -1 se não houver
+	 * Só é considerada quando há um peão adversário ao lado capaz de capturá-lo, para que posições iguais tenham a mesma chave
+	 */
+	private int enPassantColumn() {
+		if (enPassantVulnerable == null) {
+			return -1;
+		}
+		int square = enPassantVulnerable.getSquare();
+		long neighbours = ((Bitboards.bit(square) << 1) & ~Bitboards.FILE_A) | ((Bitboards.bit(square) >>> 1) & ~Bitboards.FILE_H);
+		if ((neighbours & board.pieces(opponent(enPassantVulnerable.getColor()), PieceType.PEAO)) == 0) {
+			return -1;
+		}
+		return Bitboards.column(square);
+	}
+	
 	// Método de implementação inicial do tabuleiro que retorna uma matriz de peças de Xadrez
 	public ChessPiece[][] getPieces() {
 		
@@ -82,12 +341,58 @@ public class ChessMatch {
 		return mat;
 	}
 	
-	// Imprime os movimentos possíveis de uma peça dada uma posição de Xadrez
+	// Imprime os movimentos legais de uma peça dada uma posição de Xadrez
 	public boolean[][] possibleMoves(ChessPosition sourcePosition) {
 		Position position = sourcePosition.toPosition();
 		validateSourcePosition(position);
-		return board.piece(position).possibleMoves();
-	}	
+		boolean[][] mat = new boolean[board.getRows()][board.getColumns()];
+		int count = moveGenerator.generateLegalMoves((ChessPiece)board.piece(position), moveBuffer);
+		for (int i = 0; i < count; i++) {
+			int to = Move.to(moveBuffer[i]);
+			mat[Bitboards.row(to)][Bitboards.column(to)] = true;
+		}
+		return mat;
+	}
+	
+	// Escreve no vetor "moves" os lances legais do jogador da vez e retorna a quantidade de lances
+	public int legalMoves(int[] moves) {
+		return moveGenerator.generateLegalMoves(currentPlayer, moves);
+	}
+	
+	// Escreve no vetor "moves" apenas os lances legais dos tipos dados (MoveGenerator.CAPTURES, QUIETS ou ALL)
+	public int legalMoves(int[] moves, int kinds) {
+		return moveGenerator.generateLegalMoves(currentPlayer, moves, kinds);
+	}
+	
+	/* Verifica se um lance (por exemplo, vindo da tabela de transposição) é legal na posição atual,
+	 * gerando apenas os lances da peça da casa de origem
+	 */
+	public boolean isLegal(int move) {
+		ChessPiece piece = board.pieceAt(Move.from(move));
+		if (move == Move.NONE || piece == null || piece.getColor() != currentPlayer) {
+			return false;
+		}
+		int count = moveGenerator.generateLegalMoves(piece, moveBuffer);
+		for (int i = 0; i < count; i++) {
+			if (moveBuffer[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	// Procura entre os lances legais o lance escrito em notação de coordenadas (por exemplo "e2e4" ou "e7e8q")
+	public int parseMove(String text) {
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = legalMoves(moves);
+		for (int i = 0; i < count; i++) {
+			if (Move.toString(moves[i]).equals(text)) {
+				return moves[i];
+			}
+		}
+		throw new ChessException("Lance inválido: " + text);
+	}
+	
 	/* Realiza um movimento de Xadrez e retorna a posição capturada durante o movimento
 	 * Recebe uma posição de origem e destino do tipo "ChessPosition"
 	 */
@@ -104,49 +409,44 @@ public class ChessMatch {
 		 */
 		validateSourcePosition(source);
 		
-		// Valida a posição de destino
-		validateTargetPosition(source, target);
-		
-		// Realiza o movimento de Xadrez da peça de origem e retorna a peça capturada durante o movimento
-		Piece capturedPiece = makeMove(source, target);
-		
-		// Testa se o movimento realizado pelo jogador o deixou em xeque
-		if (testCheck(currentPlayer)) {
-			undoMove(source, target, capturedPiece);
-			throw new ChessException("Você não pode se colocar em xeque!");
-		}
-		
-		ChessPiece movedPiece = (ChessPiece)board.piece(target);
+		/* Valida a posição de destino, que deve estar entre os lances legais da peça
+		 * (lances que deixariam o próprio Rei em xeque já são descartados pelo gerador)
+		 * e obtém o lance codificado correspondente
+		 */
+		int move = validateTargetPosition(source, target);
 		
-		// Movimento especial de Promoção
-		promoted = null;
-		if (movedPiece instanceof Pawn) {
-			if(movedPiece.getColor() == Color.BRANCO && target.getRow() == 0 || (movedPiece.getColor() == Color.PRETO && target.getRow() == 7)) {
-				promoted = (ChessPiece)board.piece(target);
-				promoted = replacePromotedPiece("D");
-			}
+		/* Realiza o movimento de Xadrez da peça de origem, o que também passa a vez, atualiza o En Passant
+		 * e testa se o movimento deixou o oponente em xeque. A promoção é feita para Dama e pode ser trocada
+		 * depois por "replacePromotedPiece"
+		 */
+		return completeMove(move);
+	}
+	
+	/* Realiza um lance codificado pela classe Move (por exemplo, escolhido pelo motor ou lido de um arquivo), com as mesmas
+	 * regras de "performChessMove": o lance precisa ser legal, e o xeque-mate e o afogamento são testados em seguida.
+	 * Nas promoções, a peça promovida já é a do lance, sem precisar de "replacePromotedPiece"
+	 */
+	public ChessPiece performChessMove(int move) {
+		if (!isLegal(move)) {
+			throw new ChessException("Lance inválido: " + Move.toString(move));
 		}
+		return completeMove(move);
+	}
+	
+	// Realiza um lance legal e testa o fim da partida, retornando a peça capturada
+	private ChessPiece completeMove(int move) {
+		makeMove(move);
 		
-		// Testa se o movimento realizado deu xeque-mate no oponente
-		check = (testCheck(opponent(currentPlayer))) ? true : false;
+		// Um lance novo descarta os lances que poderiam ser refeitos
+		redoSize = 0;
 		
-		if(testCheckMate(opponent(currentPlayer))) {
+		// Testa se o movimento realizado deu xeque-mate no oponente ou o afogou
+		if (testCheckMate(currentPlayer)) {
 			checkMate = true;
 		}
+		stalemate = testStalemate(currentPlayer);
 		
-		// Testa se o movimento realizado pelo jogador deixou o oponente em xeque
-		check = (testCheck(opponent(currentPlayer))) ? true : false;
-		nextTurn();
-		
-		// Movimento especial de En Passant
-		if (movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
-			enPassantVulnerable = movedPiece;
-		}
-		else {
-			enPassantVulnerable = null;
-		} 
-		
-		return (ChessPiece)capturedPiece;
+		return historyCaptured[historySize - 1];
 	}
 	
 	// Método para trocar um peão promovido para a peça desejada
@@ -159,12 +459,22 @@ public class ChessMatch {
 		}
 		
 		Position pos = promoted.getChessPosition().toPosition();
-		Piece p = board.removePiece(pos);
-		piecesOnTheBoard.remove(p);
+		board.removePiece(pos);
 		
 		ChessPiece newPiece = newPiece(type, promoted.getColor());
 		board.placePiece(newPiece, pos);
-		piecesOnTheBoard.add(newPiece);
+		promoted = newPiece;
+		
+		// O lance do histórico passa a ser a promoção para a peça escolhida, para ser refeito corretamente depois de desfeito
+		if (historySize > historyStart && Move.isPromotion(historyMoves[historySize - 1])) {
+			int move = historyMoves[historySize - 1];
+			historyMoves[historySize - 1] = Move.promotion(Move.from(move), Move.to(move), newPiece.getType(), Move.isCapture(move));
+		}
+		
+		// O xeque e o xeque-mate testados com a Dama podem mudar com a peça escolhida
+		check = testCheck(currentPlayer);
+		checkMate = testCheckMate(currentPlayer);
+		stalemate = testStalemate(currentPlayer);
 		
 		return newPiece;
 	}
@@ -177,108 +487,188 @@ public class ChessMatch {
 		return new Rook(board, color);
 	}
 	
-	// Método para realizar o movimento de uma peça, recebendo uma posição de origem e destino
-	private Piece makeMove(Position source, Position target) {
+	// Sobrecarga do método que instancia uma peça a partir do tipo da peça (usada nas promoções e nas cópias da partida)
+	private ChessPiece newPiece(PieceType type, Color color) {
+		if (type == PieceType.BISPO) return new Bishop(board, color);
+		if (type == PieceType.CAVALO) return new Knight(board, color);
+		if (type == PieceType.TORRE) return new Rook(board, color);
+		if (type == PieceType.PEAO) return new Pawn(board, color, this);
+		if (type == PieceType.REI) return new King(board, color, this);
+		return new Queen(board, color);
+	}
+	
+	/* Realiza um lance codificado pela classe Move, que deve ser legal na posição atual (como os gerados por "legalMoves")
+	 * Guarda na pilha de histórico o que é preciso para desfazê-lo exatamente com "unmakeMove": a peça capturada,
+	 * o peão promovido e o estado anterior da partida. Também passa a vez e atualiza o xeque do próximo jogador;
+	 * o xeque-mate só é testado por "performChessMove"
+	 */
+	public void makeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
 		
-		// Remove a peça que irá ser movida da posição de origem através do método "removePiece"
-		ChessPiece p = (ChessPiece)board.removePiece(source);
-		p.increaseMoveCount();
+		pushHistory(move);
 		
-		// Remove a peça que será capturada da posição de destino através do mesmo método
-		Piece capturedPiece = board.removePiece(target);
+		// Remove a peça que irá ser movida e a peça capturada (no En Passant, ao lado da casa de origem)
+		ChessPiece p = board.removePiece(from);
+		p.increaseMoveCount();
 		
-		if (capturedPiece != null) {
-			piecesOnTheBoard.remove(capturedPiece);
+		ChessPiece capturedPiece = null;
+		if (Move.isCapture(move)) {
+			int capturedSquare = Move.isEnPassant(move) ? Bitboards.square(Bitboards.row(from), Bitboards.column(to)) : to;
+			capturedPiece = board.removePiece(capturedSquare);
 			capturedPieces.add(capturedPiece);
 		}
+		historyCaptured[historySize - 1] = capturedPiece;
 		
-		// Coloca a peça que está realizando o movimento na posição de destino através do método "placePiece"
-		board.placePiece(p, target);
-		
-		// Movimento especial de Roque pequeno
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceR = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetR = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece)board.removePiece(sourceR);
-			board.placePiece(rook, targetR);
-			rook.increaseMoveCount();
+		// Movimento especial de Promoção: o peão sai do jogo e a nova peça é colocada na casa de destino
+		promoted = null;
+		if (Move.isPromotion(move)) {
+			historyPromotedPawn[historySize - 1] = p;
+			promoted = newPiece(Move.promotionType(move), p.getColor());
+			board.placePiece(promoted, to);
+		}
+		else {
+			board.placePiece(p, to);
 		}
 		
-		// Movimento especial de Roque grande
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceR = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetR = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece)board.removePiece(sourceR);
-			board.placePiece(rook, targetR);
+		// Movimento especial de Roque: a Torre passa para o outro lado do Rei
+		if (Move.isCastle(move)) {
+			boolean kingSide = Move.flags(move) == Move.KING_CASTLE;
+			ChessPiece rook = board.removePiece(kingSide ? from + 3 : from - 4);
+			board.placePiece(rook, kingSide ? from + 1 : from - 1);
 			rook.increaseMoveCount();
 		}
 		
-		// Movimento especial de En Passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-				Position pawnPosition;
-				if (p.getColor() == Color.BRANCO) {
-					pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-				}
-				else {
-					pawnPosition = new Position(target.getRow() - 1, target.getColumn());
-				}
-				capturedPiece = board.removePiece(pawnPosition);
-				capturedPieces.add(capturedPiece);
-				piecesOnTheBoard.remove(capturedPiece);
-			}
-		}
+		// Movimento especial de En Passant: o peão que avançou duas casas fica vulnerável no próximo lance
+		enPassantVulnerable = (Move.flags(move) == Move.DOUBLE_PAWN_PUSH) ? p : null;
 		
-		// Retorna a peça capturada
-		return capturedPiece;
+		// Capturas e lances de peão zeram o contador de meios-lances
+		halfmoveClock = (capturedPiece != null || p.getType() == PieceType.PEAO) ? 0 : halfmoveClock + 1;
+		
+		nextTurn();
+		check = testCheck(currentPlayer);
 	}
 	
-	// Método auxiliar para a lógica de xeque, desfaz um movimento já realizado
-	private void undoMove(Position source, Position target, Piece capturedPiece){
-		ChessPiece p = (ChessPiece)board.removePiece(target);
-		p.decreaseMoveCount();
+	// Desfaz o último lance feito por "makeMove", restaurando as peças e todo o estado anterior da partida
+	public void unmakeMove() {
+		if (historySize == historyStart) {
+			throw new IllegalStateException("Não há lance para ser desfeito");
+		}
+		int index = --historySize;
+		int move = historyMoves[index];
+		int from = Move.from(move);
+		int to = Move.to(move);
+		
+		previousTurn();
+		
+		// Movimento especial de Roque: a Torre volta para a casa de origem
+		if (Move.isCastle(move)) {
+			boolean kingSide = Move.flags(move) == Move.KING_CASTLE;
+			ChessPiece rook = board.removePiece(kingSide ? from + 1 : from - 1);
+			board.placePiece(rook, kingSide ? from + 3 : from - 4);
+			rook.decreaseMoveCount();
+		}
 		
-		board.placePiece(p, source);
+		// A peça da casa de destino volta para a origem (na promoção, a peça promovida sai e o peão volta)
+		ChessPiece p = board.removePiece(to);
+		if (Move.isPromotion(move)) {
+			p = historyPromotedPawn[index];
+			historyPromotedPawn[index] = null;
+		}
+		p.decreaseMoveCount();
+		board.placePiece(p, from);
 		
+		ChessPiece capturedPiece = historyCaptured[index];
 		if (capturedPiece != null) {
-			board.placePiece(capturedPiece, target);
-			capturedPieces.remove(capturedPiece);
-			piecesOnTheBoard.add(capturedPiece);
+			int capturedSquare = Move.isEnPassant(move) ? Bitboards.square(Bitboards.row(from), Bitboards.column(to)) : to;
+			board.placePiece(capturedPiece, capturedSquare);
+			capturedPieces.remove(capturedPieces.size() - 1);
+			historyCaptured[index] = null;
 		}
 		
-		// Movimento especial de Roque pequeno
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceR = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetR = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece)board.removePiece(targetR);
-			board.placePiece(rook, sourceR);
-			rook.decreaseMoveCount();
+		enPassantVulnerable = historyEnPassant[index];
+		promoted = historyPromoted[index];
+		check = (historyState[index] & 1) != 0;
+		checkMate = (historyState[index] & 2) != 0;
+		stalemate = (historyState[index] & 4) != 0;
+		halfmoveClock = historyState[index] >>> 3;
+	}
+	
+	/* Desfaz o último lance da partida, guardando-o para ser refeito por "redo", em tempo constante
+	 * Retorna false se não há lance para desfazer
+	 */
+	public boolean undo() {
+		if (historySize == historyStart) {
+			return false;
 		}
-		
-		// Movimento especial de Roque grande
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceR = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetR = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece)board.removePiece(targetR);
-			board.placePiece(rook, sourceR);
-			rook.decreaseMoveCount();
+		int move = historyMoves[historySize - 1];
+		unmakeMove();
+		if (redoSize == redoMoves.length) {
+			redoMoves = Arrays.copyOf(redoMoves, redoSize * 2);
+			redoKeys = Arrays.copyOf(redoKeys, redoSize * 2);
 		}
-		
-		// Movimento especial de En Passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-				ChessPiece pawn = (ChessPiece)board.removePiece(target);
-				Position pawnPosition;
-				if (p.getColor() == Color.BRANCO) {
-					pawnPosition = new Position(3, target.getColumn());
-				}
-				else {
-					pawnPosition = new Position(4, target.getColumn());
-				}
-				board.placePiece(pawn, pawnPosition);
-			}
+		redoMoves[redoSize] = move;
+		redoKeys[redoSize] = getZobristKey();
+		redoSize++;
+		return true;
+	}
+	
+	/* Refaz o último lance desfeito por "undo", testando o xeque-mate como "performChessMove"
+	 * Retorna false se não há lance para refazer ou se a partida mudou de posição desde que ele foi desfeito
+	 */
+	public boolean redo() {
+		if (redoSize == 0) {
+			return false;
 		}
-	}	
+		if (redoKeys[redoSize - 1] != getZobristKey()) {
+			redoSize = 0;
+			return false;
+		}
+		makeMove(redoMoves[--redoSize]);
+		checkMate = testCheckMate(currentPlayer);
+		stalemate = testStalemate(currentPlayer);
+		return true;
+	}
+	
+	public boolean canUndo() {
+		return historySize > historyStart;
+	}
+	
+	public boolean canRedo() {
+		return redoSize > 0 && redoKeys[redoSize - 1] == getZobristKey();
+	}
+	
+	// Peças capturadas até a posição atual, na ordem das capturas
+	public List<ChessPiece> getCapturedPieces() {
+		List<ChessPiece> list = new ArrayList<>();
+		for (Piece p : capturedPieces) {
+			list.add((ChessPiece)p);
+		}
+		return list;
+	}
+	
+	// Empilha o lance e o estado atual da partida antes de realizá-lo, aumentando os vetores da pilha quando necessário
+	private void pushHistory(int move) {
+		if (historySize == historyMoves.length) {
+			growHistory(historySize * 2);
+		}
+		int index = historySize++;
+		historyMoves[index] = move;
+		historyState[index] = (check ? 1 : 0) | (checkMate ? 2 : 0) | (stalemate ? 4 : 0) | (halfmoveClock << 3);
+		historyKeys[index] = getZobristKey();
+		historyEnPassant[index] = enPassantVulnerable;
+		historyPromoted[index] = promoted;
+	}
+	
+	private void growHistory(int capacity) {
+		historyMoves = Arrays.copyOf(historyMoves, capacity);
+		historyState = Arrays.copyOf(historyState, capacity);
+		historyCaptured = Arrays.copyOf(historyCaptured, capacity);
+		historyPromotedPawn = Arrays.copyOf(historyPromotedPawn, capacity);
+		historyEnPassant = Arrays.copyOf(historyEnPassant, capacity);
+		historyPromoted = Arrays.copyOf(historyPromoted, capacity);
+		historyKeys = Arrays.copyOf(historyKeys, capacity);
+	}
 	
 	/* Método de validação de posições de origem no tabuleiro. 
 	 * Também valida os movimentos possíveis de uma peça
@@ -295,22 +685,34 @@ public class ChessMatch {
 			throw new ChessException("A peça escolhida não é sua!");
 		}
 		
-		/* Através de uma negação do método "isThereAnyPossibleMove" de uma peça em uma posição do tabuleiro, 
+		/* Se a peça não possui lances legais (por exemplo, se está cravada ou não resolve um xeque), 
 		 * lança uma exceção do tipo "ChessException"
 		 */
-		if (!board.piece(position).isThereAnyPossibleMove()) {
+		if (moveGenerator.generateLegalMoves((ChessPiece)board.piece(position), moveBuffer) == 0) {
 			throw new ChessException("Não existem movimentos possíveis para essa peça!");
 		}
 	}
 	
 	/* Valida a posição de destino escolhida,
-	 * Caso a posição de origem da peça escolhida não possua um movimento possível, 
-	 * que inclua a posição de destino
+	 * Caso a posição de origem da peça escolhida não possua um movimento legal, 
+	 * que inclua a posição de destino. Retorna o lance codificado
 	 */
-	private void validateTargetPosition(Position source, Position target) {
-		if (!board.piece(source).possibleMove(target)) {
+	private int validateTargetPosition(Position source, Position target) {
+		ChessPiece piece = (ChessPiece)board.piece(source);
+		if (!piece.possibleMove(target)) {
 			throw new ChessException("A peça escolhida não pode se mover para a posição de destino");
 		}
+		int count = moveGenerator.generateLegalMoves(piece, moveBuffer);
+		int square = Bitboards.square(target);
+		for (int i = 0; i < count; i++) {
+			int move = moveBuffer[i];
+			// Nas promoções, o lance escolhido é o de promoção para Dama
+			if (Move.to(move) == square && (!Move.isPromotion(move) || Move.promotionType(move) == PieceType.DAMA)) {
+				return move;
+			}
+		}
+		// O lance é possível para a peça, mas deixaria o próprio Rei em xeque
+		throw new ChessException("Você não pode se colocar em xeque!");
 	}	
 	
 	// Método para passar as rodadas e alternar a vez entre os jogadores branco e preto
@@ -319,62 +721,74 @@ public class ChessMatch {
 		currentPlayer = (currentPlayer == Color.BRANCO) ? Color.PRETO : Color.BRANCO;
 	}
 	
+	// Método para voltar uma rodada, devolvendo a vez ao jogador anterior
+	private void previousTurn() {
+		turn--;
+		currentPlayer = (currentPlayer == Color.BRANCO) ? Color.PRETO : Color.BRANCO;
+	}
+	
 	// Método que retorna a cor do oponente
 	public Color opponent(Color color) {
 		return (color == Color.BRANCO ? Color.PRETO : Color.BRANCO);
 	}
 	
-	// Método que percorre a lista de peças de um jogo de Xadrez e localiza o Rei de determinada cor
+	// Testa se o Rei de uma cor está em xeque na posição atual
+	public boolean isCheck(Color color) {
+		return testCheck(color);
+	}
+	
+	// Testa se o Rei de uma cor levou xeque-mate na posição atual
+	public boolean isCheckMate(Color color) {
+		return testCheckMate(color);
+	}
+	
+	// Método que localiza o Rei de determinada cor pela casa mantida no tabuleiro
 	private ChessPiece king(Color color) {
-		List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-		for (Piece p : list) {
-			if (p instanceof King) {
-				return (ChessPiece)p;
-			}
+		int square = board.kingSquare(color);
+		if (square < 0) {
+			throw new IllegalStateException("Não existe rei " + color + "no tabuleiro!");
 		}
-		throw new IllegalStateException("Não existe rei " + color + "no tabuleiro!");
+		return board.pieceAt(square);
 	}
 	
-	// Testa se um movimento possível de uma peça adversária cai na casa do Rei, o que seria o xeque
+	// Testa se alguma peça adversária ataca a casa do Rei, o que seria o xeque, consultando apenas os raios que chegam ao Rei
 	private boolean testCheck(Color color) {
-		Position kingPosition = king(color).getChessPosition().toPosition();
-		List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == opponent(color)).collect(Collectors.toList());
-		for (Piece p : opponentPieces) {
-			boolean[][] mat = p.possibleMoves();
-			if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-				return true;
-			}
+		int kingSquare = board.kingSquare(color);
+		if (kingSquare < 0) {
+			throw new IllegalStateException("Não existe rei " + color + "no tabuleiro!");
 		}
-		return false;
+		return board.isSquareAttacked(kingSquare, opponent(color));
 	}
 	
-	/* Método que testa o xeque-mate ao criar uma matriz booleana com todos os movimentos possíveis de uma peça adversária
-	 * Para qualquer movimento possível de uma peça adversária no tabuleiro, faz-se um movimento e, se no final de um movimento
-	 * A peça continuar em xeque, então o programa retorna verdadeiro e a partida acaba
+	/* Método que testa o xeque-mate: o Rei da cor dada está em xeque e o gerador não encontra nenhum lance legal,
+	 * já que os lances que não resolvem o xeque são descartados sem precisar fazer e desfazer cada um
 	 */
 	private boolean testCheckMate(Color color) {
 		if (!testCheck(color)) {
 			return false;
 		}
-		List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-		for (Piece p : list) {
-			boolean[][] mat = p.possibleMoves();
-			for (int i = 0; i < board.getRows(); i++) {
-				for (int j = 0; j < board.getColumns(); j++) {
-					if (mat[i][j]) {
-						Position source = ((ChessPiece)p).getChessPosition().toPosition();
-						Position target = new Position(i, j);
-						Piece capturedPiece = makeMove(source, target);
-						boolean testCheck = testCheck(color);
-						undoMove(source, target, capturedPiece);
-						if (!testCheck) {
-							return false;
-						}
-					}
-				}
-			}
+		return moveGenerator.generateLegalMoves(color, moveBuffer) == 0;
+	}
+	
+	// Afogamento: o jogador não está em xeque e o gerador não encontra nenhum lance legal
+	private boolean testStalemate(Color color) {
+		if (testCheck(color)) {
+			return false;
 		}
-		return true;
+		return moveGenerator.generateLegalMoves(color, moveBuffer) == 0;
+	}
+	
+	/* Escreve no vetor "moves" os lances pseudo-legais de todas as peças de uma cor (codificados pela classe Move)
+	 * e retorna a quantidade de lances gerados. As peças são percorridas pelo bitboard de ocupação da cor
+	 */
+	public int generateMoves(Color color, int[] moves) {
+		int count = 0;
+		long pieces = board.occupancy(color);
+		while (pieces != 0) {
+			count = board.pieceAt(Bitboards.firstSquare(pieces)).generateMoves(moves, count);
+			pieces &= pieces - 1;
+		}
+		return count;
 	}
 	
 	// Método que coloca uma peça numa posição do tabuleiro, recebendo a peça, a linha e a coluna
@@ -384,7 +798,6 @@ public class ChessMatch {
 		 * Recebe a peça e instanciando uma nova posição de xadrez com a linha e coluna
 		 */
 		board.placePiece(piece, new ChessPosition(column, row).toPosition());
-		piecesOnTheBoard.add(piece);
 	}
 	
 	// Método para configurar inicialmente o tabuleiro de Xadrez
@@ -18,6 +18,9 @@ public abstract class ChessPiece extends Piece {
 		return color;
 	}
 	
+	// Tipo da peça, usado para indexar os bitboards do tabuleiro
+	public abstract PieceType getType();
+	
 	public int getMoveCount() {
 		return moveCount;
 	}
@@ -27,11 +30,89 @@ public abstract class ChessPiece extends Piece {
 		moveCount++;
 	}
 	
+	// Método que define o contador de movimento, usado ao copiar uma peça para outra partida
+	protected void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+	
 	// Método decrementa o valor da variável "moveCount" (contador de movimento)
 	protected void decreaseMoveCount() {
 		moveCount--;
 	}
 	
+	/* Escreve os lances pseudo-legais da peça no vetor "moves" a partir do índice "count", codificados pela classe Move,
+	 * e retorna a nova quantidade de lances do vetor. Não cria objetos, para ser usado nos laços de geração de lances
+	 */
+	public int generateMoves(int[] moves, int count) {
+		return generateMoves(moves, count, MoveGenerator.ALL);
+	}
+	
+	/* Escreve apenas os lances pseudo-legais dos tipos dados (MoveGenerator.CAPTURES, QUIETS ou ALL): as capturas
+	 * incluem o En Passant e todas as promoções; os lances silenciosos incluem o Roque
+	 */
+	public abstract int generateMoves(int[] moves, int count, int kinds);
+	
+	protected ChessBoard getChessBoard() {
+		return (ChessBoard)getBoard();
+	}
+	
+	// Índice da casa da peça no bitboard
+	public int getSquare() {
+		return Bitboards.square(position);
+	}
+	
+	/* Método auxiliar que adiciona os lances da peça para cada casa do bitboard de destino, marcando as capturas
+	 * Só as casas com peças adversárias (capturas) ou só as vazias (lances silenciosos) são usadas, conforme os tipos pedidos
+	 */
+	protected int addMoves(int[] moves, int count, long targets, int kinds) {
+		int from = getSquare();
+		long enemies = getChessBoard().occupancy(getColor() == Color.BRANCO ? Color.PRETO : Color.BRANCO);
+		if ((kinds & MoveGenerator.CAPTURES) == 0) {
+			targets &= ~enemies;
+		}
+		if ((kinds & MoveGenerator.QUIETS) == 0) {
+			targets &= enemies;
+		}
+		while (targets != 0) {
+			int to = Bitboards.firstSquare(targets);
+			moves[count++] = Move.encode(from, to, (enemies & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET);
+			targets &= targets - 1;
+		}
+		return count;
+	}
+	
+	// Matriz de movimentos possíveis (usada pela interface) montada a partir dos lances gerados pela peça
+	@Override
+	public boolean[][] possibleMoves() {
+		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+		int[] moves = getChessBoard().pieceMoveBuffer();
+		int count = generateMoves(moves, 0);
+		for (int i = 0; i < count; i++) {
+			int to = Move.to(moves[i]);
+			mat[Bitboards.row(to)][Bitboards.column(to)] = true;
+		}
+		return mat;
+	}
+	
+	// Verifica se a peça pode ir para uma posição sem montar a matriz de movimentos possíveis
+	@Override
+	public boolean possibleMove(Position position) {
+		int[] moves = getChessBoard().pieceMoveBuffer();
+		int count = generateMoves(moves, 0);
+		int target = Bitboards.square(position);
+		for (int i = 0; i < count; i++) {
+			if (Move.to(moves[i]) == target) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean isThereAnyPossibleMove() {
+		return generateMoves(getChessBoard().pieceMoveBuffer(), 0) > 0;
+	}
+	
 	// Método que retorna retorna uma posição de Xadrezde uma peça de uma posição de matriz
 	public ChessPosition getChessPosition() {
 		return ChessPosition.fromPosition(position);
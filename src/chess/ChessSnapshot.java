@@ -0,0 +1,97 @@
+package chess;
+
+import java.util.Arrays;
+
+/* Fotografia imutável e compacta de uma posição de Xadrez: 64 bytes com a peça de cada casa, o jogador da vez,
+ * os direitos de Roque, a casa do peão vulnerável ao En Passant, o turno, o contador de meios-lances e a chave de Zobrist.
+ * Não guarda referências para peças nem para a partida, então pode ser compartilhada entre threads e guardada
+ * em grande quantidade; uma partida independente pode ser recriada a partir dela a qualquer momento
+ */
+public final class ChessSnapshot {
+
+	private static final PieceType[] TYPES = PieceType.values();
+	private static final Color[] COLORS = Color.values();
+	
+	private final byte[] squares;
+	private final Color currentPlayer;
+	private final int castlingRights;
+	private final int enPassantSquare;
+	private final int turn;
+	private final int halfmoveClock;
+	private final long key;
+	
+	ChessSnapshot(byte[] squares, Color currentPlayer, int castlingRights, int enPassantSquare, int turn, int halfmoveClock, long key) {
+		this.squares = squares;
+		this.currentPlayer = currentPlayer;
+		this.castlingRights = castlingRights;
+		this.enPassantSquare = enPassantSquare;
+		this.turn = turn;
+		this.halfmoveClock = halfmoveClock;
+		this.key = key;
+	}
+	
+	// Código de uma peça em um byte: 0 para casa vazia, senão 1 + cor * 6 + tipo
+	static byte code(Color color, PieceType type) {
+		return (byte)(1 + color.ordinal() * 6 + type.ordinal());
+	}
+	
+	public Color getColor(int square) {
+		int code = squares[square];
+		return (code == 0) ? null : COLORS[(code - 1) / 6];
+	}
+	
+	public PieceType getType(int square) {
+		int code = squares[square];
+		return (code == 0) ? null : TYPES[(code - 1) % 6];
+	}
+	
+	public Color getCurrentPlayer() {
+		return currentPlayer;
+	}
+	
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+	
+	// Casa do peão vulnerável ao En Passant, ou -1 se não houver
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+	
+	public int getTurn() {
+		return turn;
+	}
+	
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+	
+	public long getZobristKey() {
+		return key;
+	}
+	
+	// Recria uma partida independente nesta posição
+	public ChessMatch toMatch() {
+		return new ChessMatch(this);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Long.hashCode(key);
+	}
+	
+	// Duas fotografias são iguais se representam a mesma posição (o turno não é comparado)
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ChessSnapshot)) {
+			return false;
+		}
+		ChessSnapshot other = (ChessSnapshot)obj;
+		return key == other.key && currentPlayer == other.currentPlayer && castlingRights == other.castlingRights
+				&& enPassantSquare == other.enPassantSquare && Arrays.equals(squares, other.squares);
+	}
+	
+}
@@ -0,0 +1,334 @@
+package chess;
+
+/* Avaliação estática de uma posição em centipeões, do ponto de vista do jogador da vez
+ * Cada termo tem um valor de meio-jogo e um de final, e a avaliação interpola os dois pela fase da partida
+ * (o material de peças que ainda resta no tabuleiro). O material e as tabelas de casas (piece-square tables) são
+ * somados pelo tabuleiro a cada peça colocada ou removida, como a chave de Zobrist, e por isso acompanham "makeMove",
+ * "unmakeMove" e "replacePromotedPiece" sem percorrer as casas. A estrutura de peões e os escudos de peões dos Reis
+ * são guardados em uma tabela indexada pela chave dos peões (PawnHashTable) e só são recalculados quando a estrutura
+ * não está nela; mobilidade e ataques ao Rei dependem de todas as peças e são calculados a cada avaliação
+ */
+public class Evaluation {
+	
+	// Fase de cada tipo de peça (Cavalo e Bispo 1, Torre 2, Dama 4); a soma das peças iniciais é a fase máxima
+	private static final int[] PHASE = {0, 1, 1, 2, 4, 0};
+	public static final int MAX_PHASE = 24;
+	
+	// Valores das peças em centipeões no meio-jogo e no final, na ordem do enum PieceType
+	private static final int[] MIDDLEGAME_VALUES = {100, 320, 330, 500, 900, 0};
+	private static final int[] ENDGAME_VALUES = {120, 300, 320, 530, 950, 0};
+	
+	/* Tabelas de casas do ponto de vista das brancas, na ordem dos índices do tabuleiro (a8 primeiro, h1 por último)
+	 * As casas das pretas são espelhadas verticalmente (índice ^ 56)
+	 */
+	private static final int[] PAWN_MIDDLEGAME = {
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 10,  10,  20,  30,  30,  20,  10,  10,
+			  5,   5,  10,  25,  25,  10,   5,   5,
+			  0,   0,   0,  20,  20,   0,   0,   0,
+			  5,  -5, -10,   0,   0, -10,  -5,   5,
+			  5,  10,  10, -20, -20,  10,  10,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0 };
+	
+	private static final int[] PAWN_ENDGAME = {
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 80,  80,  80,  80,  80,  80,  80,  80,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 30,  30,  30,  30,  30,  30,  30,  30,
+			 15,  15,  15,  15,  15,  15,  15,  15,
+			  5,   5,   5,   5,   5,   5,   5,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  0,   0,   0,   0,   0,   0,   0,   0 };
+	
+	private static final int[] KNIGHT = {
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20,   0,   0,   0,   0, -20, -40,
+			-30,   0,  10,  15,  15,  10,   0, -30,
+			-30,   5,  15,  20,  20,  15,   5, -30,
+			-30,   0,  15,  20,  20,  15,   0, -30,
+			-30,   5,  10,  15,  15,  10,   5, -30,
+			-40, -20,   0,   5,   5,   0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50 };
+	
+	private static final int[] BISHOP = {
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,  10,  10,   5,   0, -10,
+			-10,   5,   5,  10,  10,   5,   5, -10,
+			-10,   0,  10,  10,  10,  10,   0, -10,
+			-10,  10,  10,  10,  10,  10,  10, -10,
+			-10,   5,   0,   0,   0,   0,   5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20 };
+	
+	private static final int[] ROOK = {
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  5,  10,  10,  10,  10,  10,  10,   5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			  0,   0,   0,   5,   5,   0,   0,   0 };
+	
+	private static final int[] QUEEN = {
+			-20, -10, -10,  -5,  -5, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,   5,   5,   5,   0, -10,
+			 -5,   0,   5,   5,   5,   5,   0,  -5,
+			  0,   0,   5,   5,   5,   5,   0,  -5,
+			-10,   5,   5,   5,   5,   5,   0, -10,
+			-10,   0,   5,   0,   0,   0,   0, -10,
+			-20, -10, -10,  -5,  -5, -10, -10, -20 };
+	
+	private static final int[] KING_MIDDLEGAME = {
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			 20,  20,   0,   0,   0,   0,  20,  20,
+			 20,  30,  10,   0,   0,  10,  30,  20 };
+	
+	private static final int[] KING_ENDGAME = {
+			-50, -40, -30, -20, -20, -30, -40, -50,
+			-30, -20, -10,   0,   0, -10, -20, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -30,   0,   0,   0,   0, -30, -30,
+			-50, -30, -30, -30, -30, -30, -30, -50 };
+	
+	private static final int[][] MIDDLEGAME_TABLES = {PAWN_MIDDLEGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_MIDDLEGAME};
+	private static final int[][] ENDGAME_TABLES = {PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_ENDGAME};
+	
+	/* Material mais tabela de casas de cada peça em cada casa, já com o sinal da cor (positivo para as brancas),
+	 * no mesmo índice das chaves de Zobrist: (cor * 6 + tipo) * 64 + casa
+	 */
+	private static final int[] MIDDLEGAME = new int[12 * 64];
+	private static final int[] ENDGAME = new int[12 * 64];
+	
+	// Estrutura de peões: penalidades por peão dobrado e isolado e bônus do peão passado pela fileira (a partir da inicial)
+	private static final int DOUBLED_MIDDLEGAME = -10;
+	private static final int DOUBLED_ENDGAME = -20;
+	private static final int ISOLATED_MIDDLEGAME = -10;
+	private static final int ISOLATED_ENDGAME = -15;
+	private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+	private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 70, 110, 0};
+	
+	// Mobilidade: pontos por casa alcançável (fora das casas atacadas por peões adversários), por tipo de peça
+	private static final int[] MOBILITY_MIDDLEGAME = {0, 4, 3, 2, 1, 0};
+	private static final int[] MOBILITY_ENDGAME = {0, 4, 3, 4, 2, 0};
+	
+	/* Segurança do Rei (só no meio-jogo): bônus pelos peões à frente do Rei e penalidade pelos ataques à zona dele
+	 * (o Rei e as casas vizinhas). O peso dos ataques cresce com a quantidade de peças atacantes
+	 */
+	private static final int SHIELD_NEAR = 12;
+	private static final int SHIELD_FAR = 6;
+	private static final int[] ATTACK_WEIGHT = {0, 2, 2, 3, 5, 0};
+	private static final int[] ATTACKER_SCALE = {0, 0, 50, 75, 88, 94, 97, 99};
+	
+	/* Máscaras pré-calculadas por cor e casa: as casas à frente de um peão na mesma coluna e nas vizinhas (passado
+	 * se não houver peão adversário nelas) e as casas do escudo de peões do Rei, uma e duas fileiras à frente
+	 */
+	private static final long[][] PASSED_MASKS = new long[2][64];
+	private static final long[][] SHIELD_NEAR_MASKS = new long[2][64];
+	private static final long[][] SHIELD_FAR_MASKS = new long[2][64];
+	
+	/* Dados de uma entrada da tabela de peões: a estrutura de peões (meio-jogo e final, 16 bits cada) e, para cada cor,
+	 * a casa do Rei mais um (7 bits, zero se ainda não calculado ou sem Rei) e o escudo de peões nessa casa (8 bits).
+	 * O bit mais alto marca a entrada como válida, para que os dados nunca sejam iguais a NO_ENTRY
+	 */
+	private static final int[] SHIELD_SHIFT = {47, 32};
+	private static final long VALID_ENTRY = 1L << 63;
+	
+	// Cópias únicas dos valores dos enums, para não criar um vetor a cada avaliação, e as peças com mobilidade
+	private static final Color[] COLORS = Color.values();
+	private static final PieceType[] TYPES = PieceType.values();
+	private static final PieceType[] MOBILE_PIECES = {PieceType.CAVALO, PieceType.BISPO, PieceType.TORRE, PieceType.DAMA};
+	
+	static {
+		for (Color color : COLORS) {
+			int sign = (color == Color.BRANCO) ? 1 : -1;
+			for (PieceType type : TYPES) {
+				for (int square = 0; square < 64; square++) {
+					int relative = (color == Color.BRANCO) ? square : square ^ 56;
+					int index = (color.ordinal() * 6 + type.ordinal()) * 64 + square;
+					MIDDLEGAME[index] = sign * (MIDDLEGAME_VALUES[type.ordinal()] + MIDDLEGAME_TABLES[type.ordinal()][relative]);
+					ENDGAME[index] = sign * (ENDGAME_VALUES[type.ordinal()] + ENDGAME_TABLES[type.ordinal()][relative]);
+				}
+			}
+			
+			int forward = (color == Color.BRANCO) ? -1 : 1;
+			for (int square = 0; square < 64; square++) {
+				long files = Bitboards.FILE_A << Bitboards.column(square);
+				files |= ((files << 1) & ~Bitboards.FILE_A) | ((files >>> 1) & ~Bitboards.FILE_H);
+				long ahead = 0;
+				for (int row = Bitboards.row(square) + forward; row >= 0 && row < 8; row += forward) {
+					ahead |= 0xFFL << (row * 8);
+				}
+				PASSED_MASKS[color.ordinal()][square] = files & ahead;
+				int near = Bitboards.row(square) + forward;
+				int far = near + forward;
+				SHIELD_NEAR_MASKS[color.ordinal()][square] = (near >= 0 && near < 8) ? files & (0xFFL << (near * 8)) : 0;
+				SHIELD_FAR_MASKS[color.ordinal()][square] = (far >= 0 && far < 8) ? files & (0xFFL << (far * 8)) : 0;
+			}
+		}
+	}
+	
+	// Contribuição de uma peça em uma casa para as somas incrementais do tabuleiro
+	public static int middlegame(Color color, PieceType type, int square) {
+		return MIDDLEGAME[(color.ordinal() * 6 + type.ordinal()) * 64 + square];
+	}
+	
+	public static int endgame(Color color, PieceType type, int square) {
+		return ENDGAME[(color.ordinal() * 6 + type.ordinal()) * 64 + square];
+	}
+	
+	public static int phase(PieceType type) {
+		return PHASE[type.ordinal()];
+	}
+	
+	private final ChessMatch chessMatch;
+	private final ChessBoard board;
+	private final PawnHashTable pawnTable;
+	
+	// Somas dos termos calculados na avaliação em andamento, do ponto de vista das brancas
+	private int middlegame;
+	private int endgame;
+	
+	public Evaluation(ChessMatch chessMatch) {
+		this(chessMatch, new PawnHashTable(PawnHashTable.DEFAULT_SIZE));
+	}
+	
+	public Evaluation(ChessMatch chessMatch, PawnHashTable pawnTable) {
+		this.chessMatch = chessMatch;
+		this.board = chessMatch.getChessBoard();
+		this.pawnTable = pawnTable;
+	}
+	
+	public PawnHashTable getPawnTable() {
+		return pawnTable;
+	}
+	
+	// Avalia a posição atual da partida, do ponto de vista do jogador da vez
+	public int evaluate() {
+		long entry = pawnEntry();
+		middlegame = board.getMiddlegameScore() + (short)entry + shield(entry, Color.BRANCO) - shield(entry, Color.PRETO);
+		endgame = board.getEndgameScore() + (short)(entry >>> 16);
+		
+		evaluatePieces(Color.BRANCO, 1);
+		evaluatePieces(Color.PRETO, -1);
+		
+		int phase = Math.min(board.getPhase(), MAX_PHASE);
+		int score = (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+		return (chessMatch.getCurrentPlayer() == Color.BRANCO) ? score : -score;
+	}
+	
+	/* Entrada da tabela de peões da posição atual. Sem a entrada, a estrutura de peões é avaliada e gravada;
+	 * se algum Rei não está mais na casa em que o escudo dele foi calculado, só o escudo é recalculado
+	 */
+	private long pawnEntry() {
+		long key = board.getPawnKey();
+		long entry = pawnTable.probe(key);
+		long updated = entry;
+		if (entry == PawnHashTable.NO_ENTRY) {
+			middlegame = 0;
+			endgame = 0;
+			evaluatePawns(Color.BRANCO, 1);
+			evaluatePawns(Color.PRETO, -1);
+			updated = VALID_ENTRY | (middlegame & 0xFFFFL) | ((endgame & 0xFFFFL) << 16);
+		}
+		for (Color color : COLORS) {
+			int shift = SHIELD_SHIFT[color.ordinal()];
+			int king = board.kingSquare(color);
+			if (((updated >>> shift) & 0x7F) != king + 1) {
+				long value = (king + 1) | ((long)pawnShield(color, king) << 7);
+				updated = (updated & ~(0x7FFFL << shift)) | (value << shift);
+			}
+		}
+		if (updated != entry) {
+			pawnTable.store(key, updated);
+		}
+		return updated;
+	}
+	
+	private static int shield(long entry, Color color) {
+		return (int)((entry >>> (SHIELD_SHIFT[color.ordinal()] + 7)) & 0xFF);
+	}
+	
+	// Escudo de peões do Rei de uma cor: peões próprios uma e duas fileiras à frente dele, na coluna dele e nas vizinhas
+	private int pawnShield(Color color, int king) {
+		if (king < 0) {
+			return 0;
+		}
+		long pawns = board.pieces(color, PieceType.PEAO);
+		return SHIELD_NEAR * Long.bitCount(pawns & SHIELD_NEAR_MASKS[color.ordinal()][king])
+				+ SHIELD_FAR * Long.bitCount(pawns & SHIELD_FAR_MASKS[color.ordinal()][king]);
+	}
+	
+	// Peões dobrados, isolados e passados de uma cor
+	private void evaluatePawns(Color color, int sign) {
+		long pawns = board.pieces(color, PieceType.PEAO);
+		long enemyPawns = board.pieces(chessMatch.opponent(color), PieceType.PEAO);
+		for (int column = 0; column < 8; column++) {
+			int count = Long.bitCount(pawns & (Bitboards.FILE_A << column));
+			if (count > 1) {
+				middlegame += sign * DOUBLED_MIDDLEGAME * (count - 1);
+				endgame += sign * DOUBLED_ENDGAME * (count - 1);
+			}
+		}
+		for (int i = board.pieceCount(color, PieceType.PEAO) - 1; i >= 0; i--) {
+			int square = board.pieceSquare(color, PieceType.PEAO, i);
+			long file = Bitboards.FILE_A << Bitboards.column(square);
+			long adjacent = ((file << 1) & ~Bitboards.FILE_A) | ((file >>> 1) & ~Bitboards.FILE_H);
+			if ((pawns & adjacent) == 0) {
+				middlegame += sign * ISOLATED_MIDDLEGAME;
+				endgame += sign * ISOLATED_ENDGAME;
+			}
+			if ((enemyPawns & PASSED_MASKS[color.ordinal()][square]) == 0) {
+				int rank = (color == Color.BRANCO) ? 7 - Bitboards.row(square) : Bitboards.row(square);
+				middlegame += sign * PASSED_MIDDLEGAME[rank];
+				endgame += sign * PASSED_ENDGAME[rank];
+			}
+		}
+	}
+	
+	/* Mobilidade das peças de uma cor e ataques delas à zona do Rei adversário
+	 * Os ataques de cada peça são calculados uma única vez e usados pelos dois termos
+	 */
+	private void evaluatePieces(Color color, int sign) {
+		Color opponent = chessMatch.opponent(color);
+		long occupied = board.occupied();
+		long available = ~board.occupancy(color) & ~Bitboards.pawnAttacks(opponent, board.pieces(opponent, PieceType.PEAO));
+		int enemyKing = board.kingSquare(opponent);
+		long kingZone = (enemyKing >= 0) ? Bitboards.kingAttacksFrom(enemyKing) | Bitboards.bit(enemyKing) : 0;
+		int attackers = 0;
+		int attackWeight = 0;
+		
+		for (PieceType type : MOBILE_PIECES) {
+			int t = type.ordinal();
+			for (int i = board.pieceCount(color, type) - 1; i >= 0; i--) {
+				int square = board.pieceSquare(color, type, i);
+				long attacks;
+				switch (type) {
+				case CAVALO: attacks = Bitboards.knightAttacksFrom(square); break;
+				case BISPO: attacks = Bitboards.bishopAttacks(square, occupied); break;
+				case TORRE: attacks = Bitboards.rookAttacks(square, occupied); break;
+				default: attacks = Bitboards.queenAttacks(square, occupied); break;
+				}
+				int mobility = Long.bitCount(attacks & available);
+				middlegame += sign * MOBILITY_MIDDLEGAME[t] * mobility;
+				endgame += sign * MOBILITY_ENDGAME[t] * mobility;
+				if ((attacks & kingZone) != 0) {
+					attackers++;
+					attackWeight += ATTACK_WEIGHT[t] * Long.bitCount(attacks & kingZone);
+				}
+			}
+		}
+		middlegame += sign * attackWeight * ATTACKER_SCALE[Math.min(attackers, ATTACKER_SCALE.length - 1)] / 10;
+	}
+	
+}
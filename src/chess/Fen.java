@@ -0,0 +1,77 @@
+package chess;
+
+/* Importação e exportação de posições na notação FEN (Forsyth-Edwards)
+ * Exemplo (posição inicial): "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+ */
+public final class Fen {
+
+	public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	
+	private static final String PIECE_LETTERS = "pnbrqk";
+	
+	private Fen() {
+	}
+	
+	// Cria uma partida na posição descrita pela FEN
+	public static ChessMatch parse(String fen) {
+		FenParser parser = new FenParser();
+		if (!parser.parse(fen)) {
+			throw new ChessException("FEN inválida: " + fen);
+		}
+		return parser.toMatch();
+	}
+	
+	// Escreve a posição atual de uma partida na notação FEN
+	public static String toFen(ChessMatch chessMatch) {
+		ChessBoard board = chessMatch.getChessBoard();
+		StringBuilder sb = new StringBuilder(90);
+		for (int row = 0; row < 8; row++) {
+			int empty = 0;
+			for (int column = 0; column < 8; column++) {
+				ChessPiece piece = board.pieceAt(Bitboards.square(row, column));
+				if (piece == null) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				char letter = PIECE_LETTERS.charAt(piece.getType().ordinal());
+				sb.append(piece.getColor() == Color.BRANCO ? Character.toUpperCase(letter) : letter);
+			}
+			if (empty > 0) {
+				sb.append(empty);
+			}
+			if (row < 7) {
+				sb.append('/');
+			}
+		}
+		
+		sb.append(chessMatch.getCurrentPlayer() == Color.BRANCO ? " w " : " b ");
+		
+		int rights = chessMatch.castlingRights();
+		if (rights == 0) {
+			sb.append('-');
+		}
+		if ((rights & 1) != 0) sb.append('K');
+		if ((rights & 2) != 0) sb.append('Q');
+		if ((rights & 4) != 0) sb.append('k');
+		if ((rights & 8) != 0) sb.append('q');
+		
+		// A casa do En Passant é a que o peão vulnerável acabou de atravessar
+		ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+		if (vulnerable != null) {
+			int square = vulnerable.getSquare() + (vulnerable.getColor() == Color.BRANCO ? 8 : -8);
+			sb.append(' ').append(Move.squareName(square));
+		}
+		else {
+			sb.append(" -");
+		}
+		
+		sb.append(' ').append(chessMatch.getHalfmoveClock());
+		sb.append(' ').append((chessMatch.getTurn() + 1) / 2);
+		return sb.toString();
+	}
+	
+}
@@ -0,0 +1,268 @@
+package chess;
+
+import java.util.Arrays;
+
+/* Leitor de posições na notação FEN (Forsyth-Edwards), feito para ser reutilizado em grandes volumes:
+ * a linha é lida diretamente de um vetor de bytes para campos primitivos do próprio leitor, sem criar objetos.
+ * Depois da leitura, a posição pode ser consultada pelos métodos de acesso, identificada pela chave de Zobrist
+ * (também calculada sem criar objetos) ou convertida em uma fotografia ou partida quando for necessário
+ */
+public class FenParser {
+
+	private static final String PIECE_LETTERS = "pnbrqk";
+	
+	// Cópias únicas dos valores dos enums ("values()" cria um vetor novo a cada chamada)
+	private static final PieceType[] TYPES = PieceType.values();
+	private static final Color[] COLORS = Color.values();
+	
+	private byte[] squares = new byte[64];
+	private Color currentPlayer;
+	private int castlingRights;
+	private int enPassantSquare;
+	private int halfmoveClock;
+	private int fullmoveNumber;
+	
+	// Vetor reutilizado para ler textos (CharSequence) pelo mesmo código que lê bytes
+	private byte[] text = new byte[128];
+	
+	// Posição da leitura no vetor e fim da linha
+	private byte[] data;
+	private int index;
+	private int end;
+	
+	// Lê uma posição de um texto, retornando falso se ele não for uma FEN válida
+	public boolean parse(CharSequence fen) {
+		int length = fen.length();
+		if (length > text.length) {
+			text = new byte[length];
+		}
+		for (int i = 0; i < length; i++) {
+			text[i] = (byte)fen.charAt(i);
+		}
+		return parse(text, 0, length);
+	}
+	
+	/* Lê uma posição dos bytes [offset, offset + length) de um vetor (texto ASCII), retornando falso se não for uma FEN válida
+	 * Os contadores de meios-lances e de lances são opcionais, como em muitos arquivos de posições
+	 */
+	public boolean parse(byte[] data, int offset, int length) {
+		this.data = data;
+		this.index = offset;
+		this.end = offset + length;
+		
+		// Ignora espaços e quebras de linha (inclusive "\r") no começo e no fim da linha
+		while (index < end && data[index] <= ' ') {
+			index++;
+		}
+		while (end > index && data[end - 1] <= ' ') {
+			end--;
+		}
+		
+		return parsePlacement() && skipSpace() && parseSide() && skipSpace() && parseCastling() && skipSpace() 
+				&& parseEnPassant() && parseCounters();
+	}
+	
+	// Peças de cada fileira, da oitava (linha 0 do tabuleiro) para a primeira
+	private boolean parsePlacement() {
+		Arrays.fill(squares, (byte)0);
+		int row = 0;
+		int column = 0;
+		int kings = 0;
+		while (index < end && data[index] != ' ') {
+			int c = data[index++];
+			if (c == '/') {
+				if (column != 8 || ++row > 7) {
+					return false;
+				}
+				column = 0;
+			}
+			else if (c >= '1' && c <= '8') {
+				column += c - '0';
+				if (column > 8) {
+					return false;
+				}
+			}
+			else {
+				int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+				if (type < 0 || column > 7) {
+					return false;
+				}
+				Color color = Character.isUpperCase(c) ? Color.BRANCO : Color.PRETO;
+				squares[Bitboards.square(row, column++)] = ChessSnapshot.code(color, TYPES[type]);
+				if (type == PieceType.REI.ordinal()) {
+					kings += (color == Color.BRANCO) ? 1 : 16;
+				}
+			}
+		}
+		
+		// A posição deve ter as oito fileiras completas e exatamente um Rei de cada cor
+		return row == 7 && column == 8 && kings == 17;
+	}
+	
+	private boolean parseSide() {
+		if (index >= end) {
+			return false;
+		}
+		int c = data[index++];
+		if (c == 'w') {
+			currentPlayer = Color.BRANCO;
+		}
+		else if (c == 'b') {
+			currentPlayer = Color.PRETO;
+		}
+		else {
+			return false;
+		}
+		return true;
+	}
+	
+	// Direitos de Roque ("KQkq" ou "-"), mantidos apenas quando o Rei e a Torre estão nas casas iniciais
+	private boolean parseCastling() {
+		castlingRights = 0;
+		if (index < end && data[index] == '-') {
+			index++;
+			return true;
+		}
+		while (index < end && data[index] != ' ') {
+			int c = data[index++];
+			if (c == 'K') castlingRights |= 1;
+			else if (c == 'Q') castlingRights |= 2;
+			else if (c == 'k') castlingRights |= 4;
+			else if (c == 'q') castlingRights |= 8;
+			else return false;
+		}
+		if (!isPiece(60, Color.BRANCO, PieceType.REI)) castlingRights &= ~3;
+		if (!isPiece(63, Color.BRANCO, PieceType.TORRE)) castlingRights &= ~1;
+		if (!isPiece(56, Color.BRANCO, PieceType.TORRE)) castlingRights &= ~2;
+		if (!isPiece(4, Color.PRETO, PieceType.REI)) castlingRights &= ~12;
+		if (!isPiece(7, Color.PRETO, PieceType.TORRE)) castlingRights &= ~4;
+		if (!isPiece(0, Color.PRETO, PieceType.TORRE)) castlingRights &= ~8;
+		return true;
+	}
+	
+	/* Casa de destino do En Passant ("e3" ou "-"), convertida para a casa do peão vulnerável,
+	 * que fica uma fileira à frente do destino no sentido do peão que avançou
+	 */
+	private boolean parseEnPassant() {
+		enPassantSquare = -1;
+		if (index < end && data[index] == '-') {
+			index++;
+			return true;
+		}
+		if (index + 1 >= end) {
+			return false;
+		}
+		int column = data[index++] - 'a';
+		int rank = data[index++] - '0';
+		if (column < 0 || column > 7 || rank != (currentPlayer == Color.BRANCO ? 6 : 3)) {
+			return false;
+		}
+		int target = Bitboards.square(8 - rank, column);
+		int pawn = (currentPlayer == Color.BRANCO) ? target + 8 : target - 8;
+		if (isPiece(pawn, currentPlayer == Color.BRANCO ? Color.PRETO : Color.BRANCO, PieceType.PEAO)) {
+			enPassantSquare = pawn;
+		}
+		return true;
+	}
+	
+	private boolean parseCounters() {
+		halfmoveClock = 0;
+		fullmoveNumber = 1;
+		if (index == end) {
+			return true;
+		}
+		if (!skipSpace() || (halfmoveClock = parseNumber()) < 0) {
+			return false;
+		}
+		if (index == end) {
+			return true;
+		}
+		return skipSpace() && (fullmoveNumber = parseNumber()) > 0 && index == end;
+	}
+	
+	private int parseNumber() {
+		int start = index;
+		int value = 0;
+		while (index < end && data[index] >= '0' && data[index] <= '9' && index - start < 9) {
+			value = value * 10 + (data[index++] - '0');
+		}
+		return (index == start) ? -1 : value;
+	}
+	
+	private boolean skipSpace() {
+		if (index >= end || data[index] != ' ') {
+			return false;
+		}
+		while (index < end && data[index] == ' ') {
+			index++;
+		}
+		return index < end;
+	}
+	
+	private boolean isPiece(int square, Color color, PieceType type) {
+		return squares[square] == ChessSnapshot.code(color, type);
+	}
+	
+	public Color getColor(int square) {
+		int code = squares[square];
+		return (code == 0) ? null : COLORS[(code - 1) / 6];
+	}
+	
+	public PieceType getType(int square) {
+		int code = squares[square];
+		return (code == 0) ? null : TYPES[(code - 1) % 6];
+	}
+	
+	public Color getCurrentPlayer() {
+		return currentPlayer;
+	}
+	
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+	
+	// Casa do peão vulnerável ao En Passant, ou -1 se não houver
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+	
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+	
+	public int getFullmoveNumber() {
+		return fullmoveNumber;
+	}
+	
+	// Turno da partida correspondente ao número do lance: cada lance tem um turno das brancas e um das pretas
+	public int getTurn() {
+		return 2 * (fullmoveNumber - 1) + (currentPlayer == Color.BRANCO ? 1 : 2);
+	}
+	
+	// Chave de Zobrist da posição lida, igual à de uma partida na mesma posição
+	public long getZobristKey() {
+		long key = Zobrist.side(currentPlayer) ^ Zobrist.castling(castlingRights);
+		for (int square = 0; square < 64; square++) {
+			if (squares[square] != 0) {
+				key ^= Zobrist.piece(getColor(square), getType(square), square);
+			}
+		}
+		if (enPassantSquare >= 0) {
+			int column = Bitboards.column(enPassantSquare);
+			int capturer = ChessSnapshot.code(currentPlayer, PieceType.PEAO);
+			if ((column > 0 && squares[enPassantSquare - 1] == capturer) || (column < 7 && squares[enPassantSquare + 1] == capturer)) {
+				key ^= Zobrist.enPassant(column);
+			}
+		}
+		return key;
+	}
+	
+	public ChessSnapshot toSnapshot() {
+		return new ChessSnapshot(squares.clone(), currentPlayer, castlingRights, enPassantSquare, getTurn(), halfmoveClock, getZobristKey());
+	}
+	
+	public ChessMatch toMatch() {
+		return new ChessMatch(toSnapshot());
+	}
+	
+}
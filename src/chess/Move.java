@@ -0,0 +1,85 @@
+package chess;
+
+/* Codificação de um lance de Xadrez em um único int, para que a geração de lances escreva em vetores primitivos
+ * sem criar objetos: bits 0-5 casa de origem, bits 6-11 casa de destino e bits 12-15 o tipo do lance.
+ * As casas usam o mesmo índice dos bitboards (linha * 8 + coluna, com a8 = 0)
+ */
+public final class Move {
+
+	public static final int NONE = 0;
+	
+	public static final int QUIET = 0;
+	public static final int DOUBLE_PAWN_PUSH = 1;
+	public static final int KING_CASTLE = 2;
+	public static final int QUEEN_CASTLE = 3;
+	public static final int CAPTURE = 4;
+	public static final int EN_PASSANT = 5;
+	public static final int PROMOTION = 8;
+	
+	// Quantidade máxima de lances pseudo-legais de uma posição, usada para dimensionar os vetores de lances
+	public static final int MAX_MOVES = 256;
+	
+	// Peças de promoção na ordem dos dois bits baixos do tipo do lance
+	private static final PieceType[] PROMOTION_TYPES = {PieceType.CAVALO, PieceType.BISPO, PieceType.TORRE, PieceType.DAMA};
+	
+	private Move() {
+	}
+	
+	public static int encode(int from, int to, int flags) {
+		return from | (to << 6) | (flags << 12);
+	}
+	
+	// Codifica uma promoção para o tipo de peça dado (Cavalo, Bispo, Torre ou Dama)
+	public static int promotion(int from, int to, PieceType type, boolean capture) {
+		int flags = PROMOTION | (type.ordinal() - PieceType.CAVALO.ordinal());
+		return encode(from, to, capture ? flags | CAPTURE : flags);
+	}
+	
+	public static int from(int move) {
+		return move & 63;
+	}
+	
+	public static int to(int move) {
+		return (move >>> 6) & 63;
+	}
+	
+	public static int flags(int move) {
+		return (move >>> 12) & 15;
+	}
+	
+	public static boolean isCapture(int move) {
+		return (flags(move) & CAPTURE) != 0;
+	}
+	
+	public static boolean isPromotion(int move) {
+		return (flags(move) & PROMOTION) != 0;
+	}
+	
+	public static boolean isEnPassant(int move) {
+		return flags(move) == EN_PASSANT;
+	}
+	
+	public static boolean isCastle(int move) {
+		int flags = flags(move);
+		return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+	}
+	
+	public static PieceType promotionType(int move) {
+		return PROMOTION_TYPES[flags(move) & 3];
+	}
+	
+	// Nome da casa em notação de Xadrez (por exemplo "e4")
+	public static String squareName(int square) {
+		return "" + (char)('a' + Bitboards.column(square)) + (8 - Bitboards.row(square));
+	}
+	
+	// Representação do lance em notação de coordenadas (por exemplo "e2e4" ou "e7e8q")
+	public static String toString(int move) {
+		String s = squareName(from(move)) + squareName(to(move));
+		if (isPromotion(move)) {
+			s += "nbrq".charAt(flags(move) & 3);
+		}
+		return s;
+	}
+	
+}
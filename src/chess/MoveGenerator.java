@@ -0,0 +1,135 @@
+package chess;
+
+/* Gerador de lances legais de uma partida
+ * Parte dos lances pseudo-legais gerados pelas peças e descarta os que deixariam o próprio Rei em xeque,
+ * calculando diretamente as peças cravadas e as casas que resolvem um xeque, sem fazer e desfazer cada lance
+ */
+public class MoveGenerator {
+
+	// Tipos de lances que podem ser gerados separadamente: capturas (com En Passant e promoções), silenciosos ou todos
+	public static final int CAPTURES = 1;
+	public static final int QUIETS = 2;
+	public static final int ALL = CAPTURES | QUIETS;
+	
+	private ChessMatch chessMatch;
+	private ChessBoard board;
+	
+	// Estado calculado para a posição e o lado sendo filtrados
+	private Color side;
+	private int kingSquare;
+	private long checkers;
+	private long checkMask;
+	private long pinned;
+	
+	public MoveGenerator(ChessMatch chessMatch, ChessBoard board) {
+		this.chessMatch = chessMatch;
+		this.board = board;
+	}
+	
+	// Escreve no vetor "moves" os lances legais de uma cor e retorna a quantidade de lances
+	public int generateLegalMoves(Color color, int[] moves) {
+		return generateLegalMoves(color, moves, ALL);
+	}
+	
+	// Escreve no vetor "moves" apenas os lances legais dos tipos dados (CAPTURES, QUIETS ou ALL) e retorna a quantidade
+	public int generateLegalMoves(Color color, int[] moves, int kinds) {
+		int count = 0;
+		long pieces = board.occupancy(color);
+		while (pieces != 0) {
+			count = board.pieceAt(Bitboards.firstSquare(pieces)).generateMoves(moves, count, kinds);
+			pieces &= pieces - 1;
+		}
+		return filterLegalMoves(color, moves, 0, count);
+	}
+	
+	// Escreve no vetor "moves" apenas os lances legais de uma peça e retorna a quantidade de lances
+	public int generateLegalMoves(ChessPiece piece, int[] moves) {
+		int count = piece.generateMoves(moves, 0);
+		return filterLegalMoves(piece.getColor(), moves, 0, count);
+	}
+	
+	/* Remove do intervalo [start, end) do vetor os lances pseudo-legais ilegais da cor dada,
+	 * compactando os legais no início do intervalo, e retorna o novo fim do intervalo
+	 */
+	public int filterLegalMoves(Color color, int[] moves, int start, int end) {
+		prepare(color);
+		int count = start;
+		for (int i = start; i < end; i++) {
+			if (isLegal(moves[i])) {
+				moves[count++] = moves[i];
+			}
+		}
+		return count;
+	}
+	
+	/* Calcula, para a cor dada, as peças que dão xeque no Rei, a máscara de casas que resolvem um xeque simples
+	 * (capturar a peça ou se interpor) e as peças cravadas pelas Torres, Bispos e Damas adversárias
+	 */
+	private void prepare(Color color) {
+		side = color;
+		Color opponent = chessMatch.opponent(color);
+		kingSquare = board.kingSquare(color);
+		if (kingSquare < 0) {
+			throw new IllegalStateException("Não existe rei " + color + "no tabuleiro!");
+		}
+		long occupied = board.occupied();
+		checkers = board.attackersTo(kingSquare, opponent, occupied);
+		if (checkers == 0) {
+			checkMask = ~0L;
+		}
+		else if ((checkers & (checkers - 1)) == 0) {
+			checkMask = checkers | Bitboards.between(kingSquare, Bitboards.firstSquare(checkers));
+		}
+		else {
+			// Xeque duplo: apenas o Rei pode se mover
+			checkMask = 0L;
+		}
+		
+		long queens = board.pieces(opponent, PieceType.DAMA);
+		long snipers = (Bitboards.rookAttacks(kingSquare, 0L) & (board.pieces(opponent, PieceType.TORRE) | queens))
+				| (Bitboards.bishopAttacks(kingSquare, 0L) & (board.pieces(opponent, PieceType.BISPO) | queens));
+		pinned = 0L;
+		while (snipers != 0) {
+			long blockers = Bitboards.between(kingSquare, Bitboards.firstSquare(snipers)) & occupied;
+			if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+				pinned |= blockers & board.occupancy(color);
+			}
+			snipers &= snipers - 1;
+		}
+	}
+	
+	// Verifica se um lance pseudo-legal da cor preparada não deixa o próprio Rei em xeque
+	private boolean isLegal(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		Color opponent = chessMatch.opponent(side);
+		
+		// O Rei não pode ir para uma casa atacada (testada sem o Rei, para que ele não bloqueie o raio que o ataca)
+		if (from == kingSquare) {
+			if (Move.isCastle(move)) {
+				return checkers == 0;
+			}
+			return board.attackersTo(to, opponent, board.occupied() ^ Bitboards.bit(from)) == 0;
+		}
+		
+		/* No En Passant duas peças saem da mesma fileira, o que pode descobrir um xeque horizontal.
+		 * A posição resultante é simulada na ocupação do tabuleiro
+		 */
+		if (Move.isEnPassant(move)) {
+			int capturedSquare = Bitboards.square(Bitboards.row(from), Bitboards.column(to));
+			long occupied = (board.occupied() ^ Bitboards.bit(from) ^ Bitboards.bit(capturedSquare)) | Bitboards.bit(to);
+			return (board.attackersTo(kingSquare, opponent, occupied) & ~Bitboards.bit(capturedSquare)) == 0;
+		}
+		
+		if ((Bitboards.bit(to) & checkMask) == 0) {
+			return false;
+		}
+		
+		// Uma peça cravada só pode se mover sobre a linha que a liga ao próprio Rei
+		if ((pinned & Bitboards.bit(from)) != 0) {
+			return (Bitboards.line(kingSquare, from) & Bitboards.bit(to)) != 0;
+		}
+		return true;
+	}
+	
+}
@@ -0,0 +1,55 @@
+package chess;
+
+/* Tabela de tamanho fixo com as avaliações da estrutura de peões, indexada pela chave de Zobrist apenas dos peões
+ * A estrutura de peões só muda nos lances de peão e nas capturas de peões, então a mesma entrada serve para quase
+ * todas as posições de uma busca. Cada entrada ocupa uma chave e um long de dados em vetores primitivos, e cada chave
+ * tem uma única posição na tabela: uma entrada nova sempre substitui a que estava lá
+ */
+public class PawnHashTable {
+	
+	public static final int DEFAULT_SIZE = 1 << 14;
+	
+	public static final long NO_ENTRY = 0L;
+	
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+	
+	private long probes;
+	private long hits;
+	
+	// Cria uma tabela com a quantidade de entradas dada (arredondada para baixo para uma potência de dois)
+	public PawnHashTable(int entries) {
+		if (entries < 1) {
+			throw new IllegalArgumentException("A tabela deve ter ao menos uma entrada");
+		}
+		int size = Integer.highestOneBit(entries);
+		keys = new long[size];
+		data = new long[size];
+		mask = size - 1;
+	}
+	
+	// Retorna os dados guardados para a chave, ou NO_ENTRY se a estrutura de peões não estiver na tabela
+	public long probe(long key) {
+		probes++;
+		int index = (int)key & mask;
+		if (data[index] != NO_ENTRY && keys[index] == key) {
+			hits++;
+			return data[index];
+		}
+		return NO_ENTRY;
+	}
+	
+	// Grava os dados de uma estrutura de peões (diferentes de NO_ENTRY), substituindo a entrada anterior da posição
+	public void store(long key, long value) {
+		int index = (int)key & mask;
+		keys[index] = key;
+		data[index] = value;
+	}
+	
+	// Proporção, em milésimos, das consultas que encontraram a estrutura de peões na tabela
+	public int hitRate() {
+		return (probes == 0) ? 0 : (int)(hits * 1000 / probes);
+	}
+	
+}
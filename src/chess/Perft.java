@@ -0,0 +1,69 @@
+package chess;
+
+import java.io.PrintStream;
+
+/* Perft: conta os nós folha da árvore de lances legais até uma profundidade dada
+ * Os totais podem ser comparados com os valores conhecidos de cada posição para validar a geração de lances,
+ * e o tempo gasto mede a velocidade do gerador, de "makeMove" e de "unmakeMove"
+ */
+public class Perft {
+
+	private ChessMatch chessMatch;
+	
+	// Um vetor de lances por nível da árvore, criados uma única vez
+	private int[][] moves;
+	
+	public Perft(ChessMatch chessMatch) {
+		this.chessMatch = chessMatch;
+	}
+	
+	// Conta os nós folha a partir da posição atual da partida
+	public long perft(int depth) {
+		ensureCapacity(depth);
+		return perft(depth, 0);
+	}
+	
+	/* Imprime, para cada lance legal da posição atual, a quantidade de nós folha abaixo dele (no formato "e2e4: 20"),
+	 * o que permite localizar o lance em que a contagem diverge de outro programa. Retorna o total
+	 */
+	public long divide(int depth, PrintStream out) {
+		ensureCapacity(depth);
+		int[] list = moves[0];
+		int count = chessMatch.legalMoves(list);
+		long total = 0;
+		for (int i = 0; i < count; i++) {
+			chessMatch.makeMove(list[i]);
+			long nodes = (depth > 1) ? perft(depth - 1, 1) : 1;
+			chessMatch.unmakeMove();
+			out.println(Move.toString(list[i]) + ": " + nodes);
+			total += nodes;
+		}
+		out.println();
+		out.println("Nós: " + total);
+		return total;
+	}
+	
+	private long perft(int depth, int ply) {
+		int[] list = moves[ply];
+		int count = chessMatch.legalMoves(list);
+		
+		// No último nível basta contar os lances legais, sem precisar fazê-los
+		if (depth <= 1) {
+			return (depth == 1) ? count : 1;
+		}
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			chessMatch.makeMove(list[i]);
+			nodes += perft(depth - 1, ply + 1);
+			chessMatch.unmakeMove();
+		}
+		return nodes;
+	}
+	
+	private void ensureCapacity(int depth) {
+		if (moves == null || moves.length < depth + 1) {
+			moves = new int[depth + 1][Move.MAX_MOVES];
+		}
+	}
+	
+}
@@ -0,0 +1,12 @@
+package chess;
+
+public enum PieceType {
+
+	PEAO,
+	CAVALO,
+	BISPO,
+	TORRE,
+	DAMA,
+	REI;
+
+}
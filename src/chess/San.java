@@ -0,0 +1,196 @@
+package chess;
+
+/* Notação algébrica padrão (SAN), usada nos arquivos PGN: "e4", "Nf3", "exd5", "Rae1", "O-O", "e8=Q+"
+ * As letras das peças são as inglesas do padrão PGN (K, Q, R, B, N). A leitura compara o texto com os lances
+ * legais da posição e pode ser feita diretamente de um vetor de bytes, sem criar objetos
+ */
+public final class San {
+	
+	private static final String PIECE_LETTERS = "PNBRQK";
+	
+	private San() {
+	}
+	
+	// Escreve em SAN um lance legal da posição atual da partida, com "+" para xeque e "#" para xeque-mate
+	public static String toSan(ChessMatch chessMatch, int move) {
+		ChessBoard board = chessMatch.getChessBoard();
+		int from = Move.from(move);
+		int to = Move.to(move);
+		StringBuilder sb = new StringBuilder(8);
+		
+		if (Move.flags(move) == Move.KING_CASTLE) {
+			sb.append("O-O");
+		}
+		else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+			sb.append("O-O-O");
+		}
+		else {
+			PieceType type = board.pieceAt(from).getType();
+			if (type == PieceType.PEAO) {
+				if (Move.isCapture(move)) {
+					sb.append((char)('a' + Bitboards.column(from))).append('x');
+				}
+				sb.append(Move.squareName(to));
+				if (Move.isPromotion(move)) {
+					sb.append('=').append(PIECE_LETTERS.charAt(Move.promotionType(move).ordinal()));
+				}
+			}
+			else {
+				sb.append(PIECE_LETTERS.charAt(type.ordinal()));
+				appendDisambiguation(chessMatch, move, type, sb);
+				if (Move.isCapture(move)) {
+					sb.append('x');
+				}
+				sb.append(Move.squareName(to));
+			}
+		}
+		
+		chessMatch.makeMove(move);
+		if (chessMatch.getCheck()) {
+			sb.append(chessMatch.legalMoves(new int[Move.MAX_MOVES]) == 0 ? '#' : '+');
+		}
+		chessMatch.unmakeMove();
+		return sb.toString();
+	}
+	
+	/* Quando outra peça do mesmo tipo também pode ir para a casa de destino, o lance indica a coluna de origem,
+	 * ou a fileira se a coluna não bastar, ou as duas
+	 */
+	private static void appendDisambiguation(ChessMatch chessMatch, int move, PieceType type, StringBuilder sb) {
+		ChessBoard board = chessMatch.getChessBoard();
+		int from = Move.from(move);
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = chessMatch.legalMoves(moves);
+		boolean ambiguous = false;
+		boolean sameColumn = false;
+		boolean sameRow = false;
+		for (int i = 0; i < count; i++) {
+			int other = Move.from(moves[i]);
+			if (other != from && Move.to(moves[i]) == Move.to(move) && board.pieceAt(other).getType() == type) {
+				ambiguous = true;
+				sameColumn |= Bitboards.column(other) == Bitboards.column(from);
+				sameRow |= Bitboards.row(other) == Bitboards.row(from);
+			}
+		}
+		if (!ambiguous) {
+			return;
+		}
+		if (!sameColumn) {
+			sb.append((char)('a' + Bitboards.column(from)));
+		}
+		else if (!sameRow) {
+			sb.append(8 - Bitboards.row(from));
+		}
+		else {
+			sb.append(Move.squareName(from));
+		}
+	}
+	
+	// Lê um lance em SAN na posição atual da partida
+	public static int parse(ChessMatch chessMatch, String san) {
+		byte[] data = new byte[san.length()];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte)san.charAt(i);
+		}
+		int move = parse(chessMatch, data, 0, data.length, new int[Move.MAX_MOVES]);
+		if (move == Move.NONE) {
+			throw new ChessException("Lance inválido: " + san);
+		}
+		return move;
+	}
+	
+	/* Lê um lance em SAN dos bytes [offset, offset + length), usando "moves" como vetor de trabalho
+	 * Retorna Move.NONE se o texto não corresponder a exatamente um lance legal da posição
+	 */
+	public static int parse(ChessMatch chessMatch, byte[] data, int offset, int length, int[] moves) {
+		int end = offset + length;
+		
+		// Ignora as marcas de xeque e as anotações ("+", "#", "!", "?")
+		while (end > offset && (data[end - 1] == '+' || data[end - 1] == '#' || data[end - 1] == '!' || data[end - 1] == '?')) {
+			end--;
+		}
+		if (end - offset < 2) {
+			return Move.NONE;
+		}
+		
+		int count = chessMatch.legalMoves(moves);
+		if (data[offset] == 'O' || data[offset] == '0') {
+			int flags = (end - offset >= 5) ? Move.QUEEN_CASTLE : Move.KING_CASTLE;
+			for (int i = 0; i < count; i++) {
+				if (Move.flags(moves[i]) == flags) {
+					return moves[i];
+				}
+			}
+			return Move.NONE;
+		}
+		
+		// Peça que se move: a letra inicial, ou peão quando não há letra
+		PieceType type = PieceType.PEAO;
+		int index = PIECE_LETTERS.indexOf(data[offset]);
+		if (index > 0) {
+			type = PieceType.values()[index];
+			offset++;
+		}
+		
+		// Peça escolhida na promoção ("e8=Q" ou "e8Q")
+		PieceType promotion = null;
+		index = PIECE_LETTERS.indexOf(data[end - 1]);
+		if (index > 0 && type == PieceType.PEAO) {
+			promotion = PieceType.values()[index];
+			end--;
+			if (data[end - 1] == '=') {
+				end--;
+			}
+		}
+		if (end - offset < 2) {
+			return Move.NONE;
+		}
+		
+		// Casa de destino nos dois últimos caracteres e, antes dela, a casa de origem parcial ou completa e o "x"
+		int column = data[end - 2] - 'a';
+		int rank = data[end - 1] - '1';
+		if (column < 0 || column > 7 || rank < 0 || rank > 7) {
+			return Move.NONE;
+		}
+		int to = Bitboards.square(7 - rank, column);
+		int fromColumn = -1;
+		int fromRow = -1;
+		for (int i = offset; i < end - 2; i++) {
+			int c = data[i];
+			if (c >= 'a' && c <= 'h') {
+				fromColumn = c - 'a';
+			}
+			else if (c >= '1' && c <= '8') {
+				fromRow = 7 - (c - '1');
+			}
+			else if (c != 'x' && c != ':' && c != '-') {
+				return Move.NONE;
+			}
+		}
+		
+		// Um avanço de peão sem coluna de origem ("e4") parte da mesma coluna do destino
+		if (type == PieceType.PEAO && fromColumn < 0) {
+			fromColumn = column;
+		}
+		
+		ChessBoard board = chessMatch.getChessBoard();
+		int found = Move.NONE;
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			int from = Move.from(move);
+			if (Move.to(move) != to || board.pieceAt(from).getType() != type
+					|| (fromColumn >= 0 && Bitboards.column(from) != fromColumn) || (fromRow >= 0 && Bitboards.row(from) != fromRow)) {
+				continue;
+			}
+			if (Move.isPromotion(move) ? Move.promotionType(move) != promotion : promotion != null) {
+				continue;
+			}
+			if (found != Move.NONE) {
+				return Move.NONE;
+			}
+			found = move;
+		}
+		return found;
+	}
+	
+}
@@ -0,0 +1,51 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/* Chaves aleatórias de 64 bits para o hashing de Zobrist das posições
+ * A chave de uma posição é o XOR das chaves de cada peça em sua casa, do jogador da vez, dos direitos de Roque
+ * e da coluna do En Passant. A semente é fixa para que as chaves sejam as mesmas em todas as execuções
+ * (as chaves podem ser gravadas em arquivos, como livros de aberturas)
+ */
+public final class Zobrist {
+
+	private static final long[] PIECES = new long[12 * 64];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT = new long[8];
+	private static final long BLACK_TO_MOVE;
+	
+	static {
+		SplittableRandom random = new SplittableRandom(0x5EED_C0DE_1234_5678L);
+		for (int i = 0; i < PIECES.length; i++) {
+			PIECES[i] = random.nextLong();
+		}
+		for (int i = 1; i < CASTLING.length; i++) {
+			CASTLING[i] = random.nextLong();
+		}
+		for (int i = 0; i < EN_PASSANT.length; i++) {
+			EN_PASSANT[i] = random.nextLong();
+		}
+		BLACK_TO_MOVE = random.nextLong();
+	}
+	
+	private Zobrist() {
+	}
+	
+	public static long piece(Color color, PieceType type, int square) {
+		return PIECES[(color.ordinal() * 6 + type.ordinal()) * 64 + square];
+	}
+	
+	// Chave do conjunto de direitos de Roque (máscara de 4 bits, ver ChessMatch.castlingRights)
+	public static long castling(int rights) {
+		return CASTLING[rights];
+	}
+	
+	public static long enPassant(int column) {
+		return EN_PASSANT[column];
+	}
+	
+	public static long side(Color color) {
+		return (color == Color.PRETO) ? BLACK_TO_MOVE : 0L;
+	}
+	
+}
@@ -0,0 +1,241 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.PawnHashTable;
+
+/* Motor de Xadrez: escolhe o melhor lance do jogador da vez de uma partida e pode jogá-lo pela API da partida
+ * ("performChessMove"), com as mesmas validações das jogadas de um jogador humano.
+ * Com mais de uma thread, a busca é paralela no modelo "Lazy SMP": cada thread auxiliar busca uma cópia própria
+ * da partida, todas compartilham a tabela de transposição, e o lance escolhido é o da thread principal.
+ * Com um livro de aberturas, as posições do livro são respondidas com um lance dele, sem busca, e com tabelas de finais,
+ * as posições das tabelas são respondidas com o lance que leva mais rápido ao xeque-mate (ou que mais o adia)
+ */
+public class Engine {
+	
+	public static final int DEFAULT_HASH_SIZE = 64;
+	
+	private volatile Search search;
+	private volatile Search[] helpers = new Search[0];
+	
+	/* Pedido de interrupção, que vale da chamada de "stop" até a próxima de "newSearch". As buscas são publicadas e
+	 * interrompidas sob o mesmo bloqueio, então um "stop" que chega antes de a busca começar não se perde
+	 */
+	private volatile boolean stopRequested;
+	private final Object stopLock = new Object();
+	
+	private TranspositionTable table = new TranspositionTable(DEFAULT_HASH_SIZE);
+	
+	// Tabela de estruturas de peões de cada thread de busca (a primeira é da thread principal), mantida entre os lances
+	private PawnHashTable[] pawnTables = { new PawnHashTable(PawnHashTable.DEFAULT_SIZE) };
+	
+	private int threads = 1;
+	private ExecutorService executor;
+	private OpeningBook book;
+	private Tablebase tablebase;
+	private SearchListener listener;
+	private final Random bookRandom = new Random();
+	
+	// Busca o melhor lance do jogador da vez sem alterar a partida
+	public SearchResult think(ChessMatch chessMatch, SearchLimits limits) {
+		if (book != null) {
+			int move = book.randomMove(chessMatch, bookRandom);
+			if (move != Move.NONE) {
+				return new SearchResult(move, 0, 0, 0, 0, new int[] { move });
+			}
+		}
+		
+		if (tablebase != null) {
+			int value = tablebase.probe(chessMatch);
+			int move = (value == Tablebase.NOT_FOUND) ? Move.NONE : tablebase.bestMove(chessMatch);
+			if (move != Move.NONE) {
+				return new SearchResult(move, Tablebase.score(value, 0), 0, 0, 0, new int[] { move });
+			}
+		}
+		
+		table.newSearch();
+		Search main = new Search(chessMatch, table, pawnTables[0]);
+		main.setTablebase(tablebase);
+		if (listener != null) {
+			main.setListener(result -> listener.iterationCompleted(new SearchResult(result.getBestMove(), result.getScore(), 
+					result.getDepth(), result.getNodes() + helperNodes(), result.getTime(), result.getPrincipalVariation())));
+		}
+		
+		// As threads auxiliares alternam a profundidade de cada iteração para não repetirem exatamente a thread principal
+		Search[] workers = new Search[threads - 1];
+		for (int i = 0; i < workers.length; i++) {
+			Search helper = new Search(new ChessMatch(chessMatch), table, pawnTables[i + 1]);
+			helper.setDepthOffset((i + 1) % 2);
+			helper.setTablebase(tablebase);
+			workers[i] = helper;
+		}
+		
+		// Todas as buscas são publicadas antes de começarem; se a interrupção já foi pedida, elas começam interrompidas
+		synchronized (stopLock) {
+			search = main;
+			helpers = workers;
+			if (stopRequested) {
+				main.stop();
+				for (Search helper : workers) {
+					helper.stop();
+				}
+			}
+		}
+		if (workers.length == 0) {
+			return main.search(limits);
+		}
+		
+		List<Future<SearchResult>> futures = new ArrayList<>();
+		for (Search helper : workers) {
+			futures.add(executor.submit(() -> helper.search(limits)));
+		}
+		
+		SearchResult result = main.search(limits);
+		long nodes = result.getNodes();
+		for (Search helper : workers) {
+			helper.stop();
+		}
+		for (Future<SearchResult> future : futures) {
+			try {
+				nodes += future.get().getNodes();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Erro em uma thread de busca", e.getCause());
+			}
+		}
+		helpers = new Search[0];
+		return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes, result.getTime(), 
+				result.getPrincipalVariation());
+	}
+	
+	// Nós visitados até agora pelas threads auxiliares da busca em andamento
+	private long helperNodes() {
+		long nodes = 0;
+		for (Search helper : helpers) {
+			nodes += helper.getNodes();
+		}
+		return nodes;
+	}
+	
+	/* Descarta um pedido de interrupção anterior. Deve ser chamado antes de iniciar a thread que vai chamar "think",
+	 * para que um "stop" que chegue logo depois interrompa essa busca mesmo que ela ainda não tenha começado
+	 */
+	public void newSearch() {
+		synchronized (stopLock) {
+			stopRequested = false;
+		}
+	}
+	
+	// Interrompe a busca em andamento, ou a próxima a começar antes de "newSearch" (pode ser chamado de outra thread)
+	public void stop() {
+		synchronized (stopLock) {
+			stopRequested = true;
+			Search current = search;
+			if (current != null) {
+				current.stop();
+			}
+			for (Search helper : helpers) {
+				helper.stop();
+			}
+		}
+	}
+	
+	// Define a quantidade de threads de busca (1 para a busca sequencial)
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("A quantidade de threads deve ser de ao menos 1");
+		}
+		shutdown();
+		this.threads = threads;
+		if (pawnTables.length < threads) {
+			PawnHashTable[] tables = Arrays.copyOf(pawnTables, threads);
+			for (int i = pawnTables.length; i < threads; i++) {
+				tables[i] = new PawnHashTable(PawnHashTable.DEFAULT_SIZE);
+			}
+			pawnTables = tables;
+		}
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(threads - 1, runnable -> {
+				Thread thread = new Thread(runnable, "busca-auxiliar");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+	
+	public int getThreads() {
+		return threads;
+	}
+	
+	// Encerra as threads auxiliares da busca paralela
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		threads = 1;
+	}
+	
+	// Troca a tabela de transposição por uma nova com o tamanho dado em megabytes
+	public void setHashSize(int megabytes) {
+		table = new TranspositionTable(megabytes);
+	}
+	
+	// Compartilha uma tabela de transposição com outros motores (por exemplo, de outras partidas simultâneas)
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+	
+	public TranspositionTable getTranspositionTable() {
+		return table;
+	}
+	
+	public void clearHash() {
+		table.clear();
+	}
+	
+	// Livro de aberturas consultado antes de cada busca (null para sempre buscar)
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+	
+	public OpeningBook getOpeningBook() {
+		return book;
+	}
+	
+	// Tabelas de finais consultadas antes e durante cada busca (null para não consultar)
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+	
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+	
+	// Recebe o resultado de cada iteração completa das buscas, com os nós de todas as threads (null para nenhum)
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+	
+	/* Busca e realiza o melhor lance na partida, retornando o resultado da busca
+	 * A peça capturada, se houver, pode ser obtida pela lista de peças da interface
+	 */
+	public SearchResult play(ChessMatch chessMatch, SearchLimits limits) {
+		SearchResult result = think(chessMatch, limits);
+		if (result.getBestMove() != Move.NONE) {
+			chessMatch.performChessMove(result.getBestMove());
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,226 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.PieceType;
+
+/* Seletor de lances da busca em etapas, cada uma gerada só quando a anterior se esgota:
+ * o lance da tabela de transposição, as capturas e promoções que não perdem material (pela vítima mais valiosa e
+ * pelo atacante menos valioso), os lances "killer", os lances silenciosos pela heurística de histórico e, por fim,
+ * as capturas que perdem material pela troca estática (SEE). Como a maior parte dos cortes beta acontece no
+ * primeiro ou segundo lance, muitas posições nem chegam a gerar os lances silenciosos.
+ * Cada nível da busca tem o seu seletor, criado uma única vez, com vetores próprios
+ */
+public class MovePicker {
+	
+	private static final int HASH_MOVE = 0;
+	private static final int GENERATE_CAPTURES = 1;
+	private static final int GOOD_CAPTURES = 2;
+	private static final int KILLERS = 3;
+	private static final int GENERATE_QUIETS = 4;
+	private static final int QUIETS = 5;
+	private static final int BAD_CAPTURES = 6;
+	private static final int DONE = 7;
+	
+	// Valores das peças na troca estática; o Rei vale mais que todas, para que nunca seja trocado
+	private static final int[] SEE_VALUES = {100, 320, 330, 500, 900, 20000};
+	private static final PieceType[] TYPES = PieceType.values();
+	
+	private final ChessMatch chessMatch;
+	private final ChessBoard board;
+	
+	private final int[] moves = new int[Move.MAX_MOVES];
+	private final int[] scores = new int[Move.MAX_MOVES];
+	private final int[] badCaptures = new int[Move.MAX_MOVES];
+	private final int[] gains = new int[32];
+	private int count;
+	private int index;
+	private int badCount;
+	private int badIndex;
+	
+	private int stage;
+	private boolean capturesOnly;
+	private int hashMove;
+	private int killer1;
+	private int killer2;
+	private int killerIndex;
+	private int[][] history;
+	
+	public MovePicker(ChessMatch chessMatch) {
+		this.chessMatch = chessMatch;
+		this.board = chessMatch.getChessBoard();
+	}
+	
+	/* Prepara o seletor para todos os lances da posição atual, com o lance da tabela (ou Move.NONE),
+	 * os dois "killers" do nível e a tabela de histórico [origem][destino] do jogador da vez
+	 */
+	public void init(int hashMove, int[] killers, int[][] history) {
+		this.stage = HASH_MOVE;
+		this.capturesOnly = false;
+		this.hashMove = hashMove;
+		this.killer1 = killers[0];
+		this.killer2 = killers[1];
+		this.history = history;
+	}
+	
+	// Prepara o seletor apenas para as capturas e promoções (busca de quiescência)
+	public void initCaptures() {
+		this.stage = GENERATE_CAPTURES;
+		this.capturesOnly = true;
+		this.hashMove = Move.NONE;
+	}
+	
+	// Próximo lance legal, ou Move.NONE quando não há mais lances (cada etapa esgotada continua na seguinte)
+	@SuppressWarnings("fallthrough")
+	public int next() {
+		switch (stage) {
+		case HASH_MOVE:
+			stage = GENERATE_CAPTURES;
+			if (hashMove != Move.NONE && chessMatch.isLegal(hashMove)) {
+				return hashMove;
+			}
+			// continua na próxima etapa
+		case GENERATE_CAPTURES:
+			count = chessMatch.legalMoves(moves, MoveGenerator.CAPTURES);
+			index = 0;
+			badCount = 0;
+			for (int i = 0; i < count; i++) {
+				scores[i] = captureScore(moves[i]);
+			}
+			stage = GOOD_CAPTURES;
+			// continua na próxima etapa
+		case GOOD_CAPTURES:
+			while (index < count) {
+				int move = pickBest();
+				if (move == hashMove) {
+					continue;
+				}
+				if (!Move.isPromotion(move) && see(move) < 0) {
+					badCaptures[badCount++] = move;
+					continue;
+				}
+				return move;
+			}
+			killerIndex = 0;
+			badIndex = 0;
+			stage = capturesOnly ? BAD_CAPTURES : KILLERS;
+			return next();
+		case KILLERS:
+			while (killerIndex < 2) {
+				int killer = (killerIndex++ == 0) ? killer1 : killer2;
+				if (killer != Move.NONE && killer != hashMove && chessMatch.isLegal(killer)) {
+					return killer;
+				}
+			}
+			stage = GENERATE_QUIETS;
+			// continua na próxima etapa
+		case GENERATE_QUIETS:
+			count = chessMatch.legalMoves(moves, MoveGenerator.QUIETS);
+			index = 0;
+			for (int i = 0; i < count; i++) {
+				scores[i] = history[Move.from(moves[i])][Move.to(moves[i])];
+			}
+			stage = QUIETS;
+			// continua na próxima etapa
+		case QUIETS:
+			while (index < count) {
+				int move = pickBest();
+				if (move != hashMove && move != killer1 && move != killer2) {
+					return move;
+				}
+			}
+			stage = BAD_CAPTURES;
+			// continua na próxima etapa
+		case BAD_CAPTURES:
+			if (badIndex < badCount) {
+				return badCaptures[badIndex++];
+			}
+			stage = DONE;
+			return Move.NONE;
+		default:
+			return Move.NONE;
+		}
+	}
+	
+	// Vítima mais valiosa pelo atacante menos valioso; a promoção soma o valor da peça promovida
+	private int captureScore(int move) {
+		ChessPiece victim = board.pieceAt(Move.to(move));
+		int victimValue = Move.isCapture(move) ? Search.VALUES[(victim != null) ? victim.getType().ordinal() : PieceType.PEAO.ordinal()] : 0;
+		int promotionValue = Move.isPromotion(move) ? Search.VALUES[Move.promotionType(move).ordinal()] : 0;
+		return (victimValue + promotionValue) * 8 - board.pieceAt(Move.from(move)).getType().ordinal();
+	}
+	
+	// Traz para a posição "index" o lance de maior pontuação entre os restantes (ordenação por seleção, sob demanda)
+	private int pickBest() {
+		int best = index;
+		for (int i = index + 1; i < count; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		int move = moves[best];
+		moves[best] = moves[index];
+		moves[index] = move;
+		int score = scores[best];
+		scores[best] = scores[index];
+		scores[index] = score;
+		index++;
+		return move;
+	}
+	
+	/* Troca estática (SEE): saldo de material da sequência de capturas na casa de destino, em que cada lado captura
+	 * sempre com a peça menos valiosa e pode parar quando continuar o faria perder. As peças que saem da ocupação
+	 * revelam os ataques de Torres, Bispos e Damas atrás delas (raios X)
+	 */
+	private int see(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		ChessPiece attacker = board.pieceAt(from);
+		ChessPiece victim = board.pieceAt(to);
+		if (victim == null || SEE_VALUES[victim.getType().ordinal()] >= SEE_VALUES[attacker.getType().ordinal()]) {
+			// En Passant e capturas de peças de valor igual ou maior nunca perdem material
+			return 0;
+		}
+		
+		long occupied = board.occupied() ^ Bitboards.bit(from);
+		Color side = chessMatch.opponent(attacker.getColor());
+		int depth = 0;
+		gains[0] = SEE_VALUES[victim.getType().ordinal()];
+		int capturedValue = SEE_VALUES[attacker.getType().ordinal()];
+		while (depth + 1 < gains.length) {
+			long attackers = board.attackersTo(to, side, occupied) & occupied;
+			if (attackers == 0) {
+				break;
+			}
+			int square = -1;
+			PieceType type = null;
+			for (PieceType candidate : TYPES) {
+				long pieces = attackers & board.pieces(side, candidate);
+				if (pieces != 0) {
+					square = Bitboards.firstSquare(pieces);
+					type = candidate;
+					break;
+				}
+			}
+			depth++;
+			gains[depth] = capturedValue - gains[depth - 1];
+			if (Math.max(-gains[depth - 1], gains[depth]) < 0) {
+				break;
+			}
+			occupied ^= Bitboards.bit(square);
+			capturedValue = SEE_VALUES[type.ordinal()];
+			side = chessMatch.opponent(side);
+		}
+		while (depth > 0) {
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+			depth--;
+		}
+		return gains[0];
+	}
+	
+}
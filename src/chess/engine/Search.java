@@ -0,0 +1,359 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Evaluation;
+import chess.Move;
+import chess.PawnHashTable;
+
+/* Busca alfa-beta (negamax) com aprofundamento iterativo sobre uma partida
+ * Os lances são feitos e desfeitos na própria partida por "makeMove" e "unmakeMove", que ao final da busca
+ * volta exatamente à posição original. Os lances de cada nível vêm de um seletor em etapas (MovePicker), que testa
+ * primeiro o melhor lance da iteração anterior, depois as capturas que não perdem material, os lances "killer" que
+ * causaram cortes na mesma profundidade e os lances silenciosos pela pontuação da heurística de histórico,
+ * gerando cada grupo de lances apenas quando o anterior se esgota.
+ * Os resultados de cada posição são guardados na tabela de transposição, que pode encerrar a busca de uma posição
+ * já vista e fornece o melhor lance encontrado antes para a ordenação.
+ * Com tabelas de finais, as posições com poucas peças recebem o valor exato das tabelas, sem serem buscadas
+ */
+public class Search {
+	
+	public static final int MATE = 32000;
+	public static final int INFINITY = 32500;
+	
+	protected static final int MAX_PLY = 128;
+	
+	// Valores das peças em centipeões, na ordem do enum PieceType (usados pelo MovePicker na ordenação das capturas)
+	protected static final int[] VALUES = {100, 320, 330, 500, 900, 0};
+	
+	// Pontuação máxima da heurística de histórico, acima da qual a tabela é reduzida à metade
+	private static final int HISTORY_LIMIT = 500_000;
+	
+	protected ChessMatch chessMatch;
+	protected ChessBoard board;
+	protected Evaluation evaluation;
+	protected TranspositionTable table;
+	protected Tablebase tablebase;
+	private SearchListener listener;
+	
+	private volatile boolean stopped;
+	private long nodes;
+	private long deadline;
+	private long nodeLimit;
+	private int rootBestMove;
+	
+	// Quantidade de níveis somada à profundidade de cada iteração (usada pelas threads auxiliares da busca paralela)
+	private int depthOffset;
+	
+	// Lances legais da raiz e seletores de lances por nível da busca, criados uma única vez
+	private int[] rootMoves = new int[Move.MAX_MOVES];
+	private MovePicker[] pickers = new MovePicker[MAX_PLY];
+	
+	private int[][] killers = new int[MAX_PLY][2];
+	private int[][][] history = new int[2][64][64];
+	
+	// Tabela triangular da variante principal
+	private int[][] pv = new int[MAX_PLY][MAX_PLY];
+	private int[] pvLength = new int[MAX_PLY];
+	
+	public Search(ChessMatch chessMatch, TranspositionTable table) {
+		this(chessMatch, table, new PawnHashTable(PawnHashTable.DEFAULT_SIZE));
+	}
+	
+	/* Busca com uma tabela de estruturas de peões própria, que pode continuar de uma busca anterior da mesma thread
+	 * (a tabela não é sincronizada e não deve ser usada por duas buscas ao mesmo tempo)
+	 */
+	public Search(ChessMatch chessMatch, TranspositionTable table, PawnHashTable pawnTable) {
+		this.chessMatch = chessMatch;
+		this.board = chessMatch.getChessBoard();
+		this.evaluation = new Evaluation(chessMatch, pawnTable);
+		this.table = table;
+		for (int ply = 0; ply < MAX_PLY; ply++) {
+			pickers[ply] = new MovePicker(chessMatch);
+		}
+	}
+	
+	/* Interrompe a busca em andamento, que retorna o melhor lance da última iteração completa
+	 * A interrupção é definitiva: uma busca interrompida antes de começar termina logo na primeira iteração
+	 */
+	public void stop() {
+		stopped = true;
+	}
+	
+	public long getNodes() {
+		return nodes;
+	}
+	
+	/* Faz cada iteração buscar níveis a mais que o normal. Na busca paralela, threads auxiliares com profundidades
+	 * diferentes da thread principal preenchem a tabela de transposição compartilhada com posições que ela ainda vai visitar
+	 */
+	void setDepthOffset(int depthOffset) {
+		this.depthOffset = depthOffset;
+	}
+	
+	// Tabelas de finais consultadas durante a busca (null para não consultar)
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+	
+	// Recebe o resultado de cada iteração completa (null para nenhum)
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+	
+	// Busca o melhor lance para o jogador da vez dentro dos limites dados
+	public SearchResult search(SearchLimits limits) {
+		long start = System.currentTimeMillis();
+		nodes = 0;
+		deadline = (limits.getMoveTime() > 0) ? start + limits.getMoveTime() : Long.MAX_VALUE;
+		nodeLimit = (limits.getNodes() > 0) ? limits.getNodes() : Long.MAX_VALUE;
+		clearHeuristics();
+		
+		int count = chessMatch.legalMoves(rootMoves);
+		if (count == 0) {
+			int score = chessMatch.getCheck() ? -MATE : 0;
+			return new SearchResult(Move.NONE, score, 0, 0, System.currentTimeMillis() - start, new int[0]);
+		}
+		
+		rootBestMove = rootMoves[0];
+		int bestScore = 0;
+		int completedDepth = 0;
+		int[] principalVariation = {rootBestMove};
+		
+		for (int depth = 1; depth <= limits.getDepth(); depth++) {
+			int score = alphaBeta(Math.min(depth + depthOffset, limits.getDepth()), -INFINITY, INFINITY, 0);
+			
+			// Uma iteração interrompida não é confiável, exceto a primeira se já encontrou algum lance
+			if (stopped && (completedDepth > 0 || pvLength[0] == 0)) {
+				break;
+			}
+			bestScore = score;
+			completedDepth = depth;
+			rootBestMove = pv[0][0];
+			principalVariation = new int[pvLength[0]];
+			System.arraycopy(pv[0], 0, principalVariation, 0, pvLength[0]);
+			if (listener != null) {
+				listener.iterationCompleted(new SearchResult(rootBestMove, bestScore, completedDepth, nodes, 
+						System.currentTimeMillis() - start, principalVariation));
+			}
+			
+			if (stopped || Math.abs(score) >= MATE - depth) {
+				break;
+			}
+			
+			// Se metade do tempo já foi gasta, a próxima iteração provavelmente não terminaria
+			if (limits.getMoveTime() > 0 && System.currentTimeMillis() - start > limits.getMoveTime() / 2) {
+				break;
+			}
+		}
+		
+		return new SearchResult(rootBestMove, bestScore, completedDepth, nodes, System.currentTimeMillis() - start, principalVariation);
+	}
+	
+	private int alphaBeta(int depth, int alpha, int beta, int ply) {
+		pvLength[ply] = 0;
+		if (checkLimits()) {
+			return 0;
+		}
+		
+		// Extensão de xeque: a posição em xeque é buscada um nível mais fundo
+		boolean inCheck = chessMatch.getCheck();
+		if (inCheck) {
+			depth++;
+		}
+		if (depth <= 0) {
+			return quiescence(alpha, beta, ply);
+		}
+		nodes++;
+		if (ply >= MAX_PLY - 1) {
+			return evaluate();
+		}
+		
+		// Repetições (basta uma dentro da busca), a regra dos cinquenta lances e o material insuficiente são empates
+		if (ply > 0 && (chessMatch.getHalfmoveClock() >= 100 || chessMatch.isRepetition(2) || chessMatch.isInsufficientMaterial())) {
+			return 0;
+		}
+		
+		// Com poucas peças, o valor das tabelas de finais é exato (a raiz é buscada para escolher o lance)
+		if (ply > 0 && tablebase != null && Long.bitCount(board.occupied()) <= tablebase.getMaxPieces()) {
+			int value = tablebase.probe(chessMatch);
+			if (value != Tablebase.NOT_FOUND) {
+				return Tablebase.score(value, ply);
+			}
+		}
+		
+		// Consulta a tabela de transposição: um resultado de profundidade suficiente pode encerrar a busca da posição
+		long key = chessMatch.getZobristKey();
+		long entry = table.probe(key);
+		int hashMove = Move.NONE;
+		if (entry != TranspositionTable.NO_ENTRY) {
+			hashMove = TranspositionTable.move(entry);
+			if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+				int score = TranspositionTable.scoreFromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+						|| (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+		
+		MovePicker picker = pickers[ply];
+		picker.init((ply == 0) ? rootBestMove : hashMove, killers[ply], history[chessMatch.getCurrentPlayer().ordinal()]);
+		
+		int originalAlpha = alpha;
+		int bestMove = Move.NONE;
+		int bestScore = -INFINITY;
+		int count = 0;
+		int move;
+		while ((move = picker.next()) != Move.NONE) {
+			count++;
+			chessMatch.makeMove(move);
+			int score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1);
+			chessMatch.unmakeMove();
+			if (stopped) {
+				return 0;
+			}
+			
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					if (score >= beta) {
+						if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+							updateQuietHeuristics(ply, move, depth);
+						}
+						break;
+					}
+				}
+			}
+		}
+		
+		// Sem lances legais: xeque-mate ou afogamento
+		if (count == 0) {
+			return inCheck ? -MATE + ply : 0;
+		}
+		
+		int bound = (bestScore >= beta) ? TranspositionTable.LOWER_BOUND 
+				: (bestScore > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+		table.store(key, bestMove, TranspositionTable.scoreToTable(bestScore, ply), depth, bound);
+		return bestScore;
+	}
+	
+	// Busca apenas capturas e promoções até a posição ficar "quieta", para não avaliar no meio de uma troca
+	private int quiescence(int alpha, int beta, int ply) {
+		pvLength[ply] = 0;
+		if (checkLimits()) {
+			return 0;
+		}
+		nodes++;
+		if (ply >= MAX_PLY - 1) {
+			return evaluate();
+		}
+		
+		// Fora do xeque, o jogador pode parar de capturar e ficar com a avaliação atual
+		boolean inCheck = chessMatch.getCheck();
+		int bestScore = -INFINITY;
+		if (!inCheck) {
+			bestScore = evaluate();
+			if (bestScore >= beta) {
+				return bestScore;
+			}
+			if (bestScore > alpha) {
+				alpha = bestScore;
+			}
+		}
+		
+		// Em xeque, todos os lances são buscados (para encontrar os xeque-mates); fora dele, só capturas e promoções
+		MovePicker picker = pickers[ply];
+		if (inCheck) {
+			picker.init(Move.NONE, killers[ply], history[chessMatch.getCurrentPlayer().ordinal()]);
+		}
+		else {
+			picker.initCaptures();
+		}
+		
+		int count = 0;
+		int move;
+		while ((move = picker.next()) != Move.NONE) {
+			count++;
+			chessMatch.makeMove(move);
+			int score = -quiescence(-beta, -alpha, ply + 1);
+			chessMatch.unmakeMove();
+			if (stopped) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				if (score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					if (score >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		
+		// Em xeque e sem lances legais: xeque-mate
+		if (inCheck && count == 0) {
+			return -MATE + ply;
+		}
+		return bestScore;
+	}
+	
+	// Avaliação estática do ponto de vista do jogador da vez
+	protected int evaluate() {
+		return evaluation.evaluate();
+	}
+	
+	// Verifica periodicamente o tempo e a quantidade de nós, interrompendo a busca quando algum limite é atingido
+	private boolean checkLimits() {
+		if ((nodes & 1023) == 0 && (nodes >= nodeLimit || System.currentTimeMillis() >= deadline)) {
+			stopped = true;
+		}
+		return stopped;
+	}
+	
+	// Um lance silencioso que causou corte vira "killer" do nível e ganha pontos de histórico
+	private void updateQuietHeuristics(int ply, int move, int depth) {
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		int[] entry = history[chessMatch.getCurrentPlayer().ordinal()][Move.from(move)];
+		entry[Move.to(move)] += depth * depth;
+		if (entry[Move.to(move)] > HISTORY_LIMIT) {
+			ageHistory();
+		}
+	}
+	
+	private void updatePrincipalVariation(int ply, int move) {
+		pv[ply][0] = move;
+		System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+		pvLength[ply] = pvLength[ply + 1] + 1;
+	}
+	
+	// Os "killers" valem apenas para uma busca; o histórico é reduzido à metade para se adaptar à nova posição
+	private void clearHeuristics() {
+		for (int[] entry : killers) {
+			entry[0] = Move.NONE;
+			entry[1] = Move.NONE;
+		}
+		ageHistory();
+	}
+	
+	private void ageHistory() {
+		for (int[][] side : history) {
+			for (int[] from : side) {
+				for (int to = 0; to < 64; to++) {
+					from[to] >>= 1;
+				}
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,48 @@
+package chess.engine;
+
+/* Limites de uma busca: profundidade máxima, tempo máximo em milissegundos e quantidade máxima de nós
+ * O valor 0 indica que o limite não é usado
+ */
+public class SearchLimits {
+
+	public static final int MAX_DEPTH = 64;
+	
+	private int depth;
+	private long moveTime;
+	private long nodes;
+	
+	public SearchLimits(int depth, long moveTime, long nodes) {
+		if (depth < 0 || moveTime < 0 || nodes < 0) {
+			throw new IllegalArgumentException("Os limites da busca não podem ser negativos");
+		}
+		this.depth = depth;
+		this.moveTime = moveTime;
+		this.nodes = nodes;
+	}
+	
+	public static SearchLimits depth(int depth) {
+		return new SearchLimits(depth, 0, 0);
+	}
+	
+	public static SearchLimits moveTime(long moveTime) {
+		return new SearchLimits(0, moveTime, 0);
+	}
+	
+	public static SearchLimits nodes(long nodes) {
+		return new SearchLimits(0, 0, nodes);
+	}
+	
+	// Profundidade máxima da busca, limitada a MAX_DEPTH quando não informada
+	public int getDepth() {
+		return (depth == 0 || depth > MAX_DEPTH) ? MAX_DEPTH : depth;
+	}
+	
+	public long getMoveTime() {
+		return moveTime;
+	}
+	
+	public long getNodes() {
+		return nodes;
+	}
+	
+}
@@ -0,0 +1,10 @@
+package chess.engine;
+
+/* Recebe o andamento de uma busca: o resultado de cada iteração completa do aprofundamento iterativo
+ * (usado, por exemplo, para as linhas "info" do protocolo UCI). É chamado pela thread da busca
+ */
+public interface SearchListener {
+	
+	void iterationCompleted(SearchResult result);
+	
+}
@@ -0,0 +1,70 @@
+package chess.engine;
+
+import chess.Move;
+
+/* Resultado de uma busca: o melhor lance (codificado pela classe Move), a avaliação em centipeões do ponto de vista
+ * do jogador da vez, a profundidade completada, a quantidade de nós visitados, o tempo gasto e a variante principal
+ */
+public class SearchResult {
+
+	private int bestMove;
+	private int score;
+	private int depth;
+	private long nodes;
+	private long time;
+	private int[] principalVariation;
+	
+	public SearchResult(int bestMove, int score, int depth, long nodes, long time, int[] principalVariation) {
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.time = time;
+		this.principalVariation = principalVariation;
+	}
+
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getTime() {
+		return time;
+	}
+	
+	public int[] getPrincipalVariation() {
+		return principalVariation.clone();
+	}
+	
+	// Nós por segundo da busca
+	public long getNodesPerSecond() {
+		return (time > 0) ? nodes * 1000 / time : nodes * 1000;
+	}
+	
+	// Verifica se a avaliação é de um xeque-mate forçado (a favor ou contra o jogador da vez)
+	public boolean isMateScore() {
+		return Math.abs(score) >= Search.MATE - SearchLimits.MAX_DEPTH * 2;
+	}
+	
+	// Quantidade de lances até o xeque-mate (positiva quando o jogador da vez dá o mate)
+	public int getMateIn() {
+		return (score > 0) ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2;
+	}
+	
+	@Override
+	public String toString() {
+		return Move.toString(bestMove) + " (profundidade " + depth + ", avaliação " + score + ", " + nodes + " nós)";
+	}
+	
+}
@@ -0,0 +1,456 @@
+package chess.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+/* Tabelas de finais com poucas peças, geradas por TablebaseGenerator, com a distância até o xeque-mate
+ * de cada posição com jogo perfeito.
+ * Cada tabela é um arquivo ("KQvKR.xtb") com o valor de cada posição em um byte, dividido em blocos de 64 KB
+ * comprimidos. Os arquivos são mapeados em memória e os blocos descomprimidos ficam em um cache compartilhado
+ * por todas as tabelas.
+ * As consultas são feitas em cada nó da busca com poucas peças, por todas as threads, sem travas: a tabela é encontrada
+ * pela chave do material (a quantidade de peças de cada tipo) e as casas são escritas em um vetor de cada thread.
+ * O cache é de mapeamento direto (cada bloco tem uma única posição, e um bloco novo substitui o anterior) em vez de LRU,
+ * porque manter a ordem de uso exigiria uma trava em cada consulta; só a falta no cache aloca memória, para o bloco
+ * descomprimido que passa a ocupar a posição, e cada thread reaproveita o seu descompressor.
+ * Valores (do ponto de vista do jogador da vez): 0 empate, n > 0 vitória com xeque-mate no n-ésimo lance próprio,
+ * n < 0 derrota com xeque-mate depois de -n - 1 lances do adversário (-1 é a posição já em xeque-mate)
+ */
+public class Tablebase implements Closeable {
+	
+	public static final int NOT_FOUND = Integer.MIN_VALUE;
+	public static final int DEFAULT_CACHE_BLOCKS = 256;
+	
+	static final String EXTENSION = ".xtb";
+	static final int MAGIC = 0x5854424C;
+	static final short VERSION = 1;
+	static final int BLOCK_SIZE = 1 << 16;
+	static final byte ILLEGAL = Byte.MIN_VALUE;
+	
+	// Tipos de peça das tabelas, exceto o Rei, do mais valioso para o menos valioso
+	private static final PieceType[] PIECES = {PieceType.DAMA, PieceType.TORRE, PieceType.BISPO, PieceType.CAVALO, PieceType.PEAO};
+	
+	// Arquivo de uma tabela: o material, o índice dos blocos comprimidos e o arquivo mapeado
+	private static final class TableFile {
+		final int id;
+		final TablebaseMaterial material;
+		final FileChannel channel;
+		final MappedByteBuffer data;
+		final long[] offsets;
+		
+		TableFile(int id, TablebaseMaterial material, FileChannel channel, MappedByteBuffer data, long[] offsets) {
+			this.id = id;
+			this.material = material;
+			this.channel = channel;
+			this.data = data;
+			this.offsets = offsets;
+		}
+	}
+	
+	/* Bloco descomprimido do cache. Os campos finais garantem que uma thread que lê a entrada do vetor sem travas
+	 * vê o bloco completo; duas threads que descomprimem o mesmo bloco apenas gravam entradas iguais
+	 */
+	private static final class CachedBlock {
+		final long key;
+		final byte[] data;
+		
+		CachedBlock(long key, byte[] data) {
+			this.key = key;
+			this.data = data;
+		}
+	}
+	
+	private final Path directory;
+	private final Map<String, TableFile> tables = new HashMap<>();
+	
+	// Tabelas endereçadas pela chave do material (endereçamento aberto), recriado a cada tabela carregada
+	private volatile TableFile[] lookup = new TableFile[1];
+	
+	private final CachedBlock[] cache;
+	private final int cacheMask;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	
+	// Vetor de casas e descompressor de cada thread para as consultas
+	private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[8]);
+	private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+	
+	private volatile int maxPieces;
+	private int nextId;
+	
+	public Tablebase(Path directory) throws IOException {
+		this(directory, DEFAULT_CACHE_BLOCKS);
+	}
+	
+	/* Abre as tabelas de um diretório, com um cache de até "cacheBlocks" blocos descomprimidos
+	 * (arredondado para baixo para uma potência de dois)
+	 */
+	public Tablebase(Path directory, int cacheBlocks) throws IOException {
+		if (cacheBlocks < 1) {
+			throw new IllegalArgumentException("O cache deve ter ao menos um bloco");
+		}
+		this.directory = directory;
+		this.cache = new CachedBlock[Integer.highestOneBit(cacheBlocks)];
+		this.cacheMask = cache.length - 1;
+		Files.createDirectories(directory);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for (Path file : files) {
+				load(file);
+			}
+		}
+	}
+	
+	// Maior quantidade de peças (contando os Reis) entre as tabelas disponíveis
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+	
+	public synchronized boolean contains(String signature) {
+		return tables.containsKey(TablebaseMaterial.of(signature).signature);
+	}
+	
+	public long getCacheHits() {
+		return hits.sum();
+	}
+	
+	public long getCacheMisses() {
+		return misses.sum();
+	}
+	
+	/* Valor da posição da partida, ou NOT_FOUND se não houver tabela para ela
+	 * Posições com direitos de Roque ou com uma captura En Passant possível não estão nas tabelas
+	 */
+	public int probe(ChessMatch chessMatch) {
+		ChessBoard board = chessMatch.getChessBoard();
+		long occupied = board.occupied();
+		int count = Long.bitCount(occupied);
+		if (count > maxPieces || chessMatch.castlingRights() != 0 || canCaptureEnPassant(chessMatch)) {
+			return NOT_FOUND;
+		}
+		if (count == 2) {
+			return 0;
+		}
+		
+		// Chaves do material com as brancas como o lado mais forte e com as pretas
+		int whiteKey = 0;
+		int blackKey = 0;
+		for (PieceType type : PIECES) {
+			int white = board.pieceCount(Color.BRANCO, type);
+			int black = board.pieceCount(Color.PRETO, type);
+			whiteKey += (white << TablebaseMaterial.shift(type, true)) + (black << TablebaseMaterial.shift(type, false));
+			blackKey += (black << TablebaseMaterial.shift(type, true)) + (white << TablebaseMaterial.shift(type, false));
+		}
+		TableFile[] tables = lookup;
+		TableFile table = find(tables, whiteKey);
+		boolean flip = false;
+		if (table == null) {
+			table = find(tables, blackKey);
+			flip = true;
+			if (table == null) {
+				return NOT_FOUND;
+			}
+		}
+		
+		// Ordem da tabela: Rei forte, Rei fraco, demais peças fortes, demais peças fracas
+		Color strong = flip ? Color.PRETO : Color.BRANCO;
+		Color weak = flip ? Color.BRANCO : Color.PRETO;
+		int[] squares = scratch.get();
+		squares[0] = board.kingSquare(strong);
+		squares[1] = board.kingSquare(weak);
+		int slot = 2;
+		for (PieceType type : PIECES) {
+			for (long pieces = board.pieces(strong, type); pieces != 0; pieces &= pieces - 1) {
+				squares[slot++] = Bitboards.firstSquare(pieces);
+			}
+		}
+		for (PieceType type : PIECES) {
+			for (long pieces = board.pieces(weak, type); pieces != 0; pieces &= pieces - 1) {
+				squares[slot++] = Bitboards.firstSquare(pieces);
+			}
+		}
+		return value(table, squares, flip, chessMatch.getCurrentPlayer() == Color.BRANCO);
+	}
+	
+	// Verifica se um peão do jogador da vez pode capturar En Passant (o único caso em que o lance anterior importa)
+	private static boolean canCaptureEnPassant(ChessMatch chessMatch) {
+		ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+		if (vulnerable == null) {
+			return false;
+		}
+		long bit = Bitboards.bit(vulnerable.getSquare());
+		long neighbours = ((bit << 1) & ~Bitboards.FILE_A) | ((bit >>> 1) & ~Bitboards.FILE_H);
+		return (neighbours & chessMatch.getChessBoard().pieces(chessMatch.getCurrentPlayer(), PieceType.PEAO)) != 0;
+	}
+	
+	/* Melhor lance da posição pelas tabelas: o que vence mais rápido, empata, ou perde mais devagar
+	 * Retorna Move.NONE se a posição ou alguma posição seguinte não estiver nas tabelas
+	 */
+	public int bestMove(ChessMatch chessMatch) {
+		if (probe(chessMatch) == NOT_FOUND) {
+			return Move.NONE;
+		}
+		int[] moves = new int[Move.MAX_MOVES];
+		int count = chessMatch.legalMoves(moves);
+		int best = Move.NONE;
+		int bestRank = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			chessMatch.makeMove(moves[i]);
+			int value = probe(chessMatch);
+			chessMatch.unmakeMove();
+			if (value == NOT_FOUND) {
+				return Move.NONE;
+			}
+			int rank = -rank(value);
+			if (rank > bestRank) {
+				bestRank = rank;
+				best = moves[i];
+			}
+		}
+		return best;
+	}
+	
+	// Meios-lances até o xeque-mate de um valor das tabelas (0 para empates)
+	public static int plies(int value) {
+		if (value > 0) {
+			return 2 * value - 1;
+		}
+		if (value < 0) {
+			return 2 * (-value - 1);
+		}
+		return 0;
+	}
+	
+	// Pontuação da busca para um valor das tabelas na distância "ply" da raiz (xeque-mates mais próximos valem mais)
+	static int score(int value, int ply) {
+		if (value > 0) {
+			return Search.MATE - ply - plies(value);
+		}
+		if (value < 0) {
+			return -Search.MATE + ply + plies(value);
+		}
+		return 0;
+	}
+	
+	// Ordem de preferência de um valor para o jogador da vez: vitórias mais rápidas, empates e derrotas mais lentas
+	static int rank(int value) {
+		if (value > 0) {
+			return 1000 - plies(value);
+		}
+		if (value < 0) {
+			return -1000 + plies(value);
+		}
+		return 0;
+	}
+	
+	/* Valor de uma posição dada pelas peças (em qualquer ordem), ou NOT_FOUND se não houver tabela para ela
+	 * Quando as pretas são o lado mais forte, a posição é espelhada com as cores trocadas
+	 */
+	int probe(PieceType[] types, boolean[] white, int[] squares, int count, boolean whiteToMove) {
+		if (count == 2) {
+			return 0;
+		}
+		int whiteKey = 0;
+		int blackKey = 0;
+		for (int i = 0; i < count; i++) {
+			if (types[i] != PieceType.REI) {
+				whiteKey += 1 << TablebaseMaterial.shift(types[i], white[i]);
+				blackKey += 1 << TablebaseMaterial.shift(types[i], !white[i]);
+			}
+		}
+		TableFile[] tables = lookup;
+		TableFile table = find(tables, whiteKey);
+		boolean flip = false;
+		if (table == null) {
+			table = find(tables, blackKey);
+			flip = true;
+			if (table == null) {
+				return NOT_FOUND;
+			}
+		}
+		
+		// Ordem da tabela: Rei forte, Rei fraco, demais peças fortes, demais peças fracas
+		int[] tableSquares = scratch.get();
+		int slot = 2;
+		for (int side = 0; side < 2; side++) {
+			boolean color = (side == 0) != flip;
+			for (int i = 0; i < count; i++) {
+				if (white[i] == color && types[i] == PieceType.REI) {
+					tableSquares[side] = squares[i];
+				}
+			}
+		}
+		for (int side = 0; side < 2; side++) {
+			boolean color = (side == 0) != flip;
+			for (PieceType type : PIECES) {
+				for (int i = 0; i < count; i++) {
+					if (white[i] == color && types[i] == type) {
+						tableSquares[slot++] = squares[i];
+					}
+				}
+			}
+		}
+		return value(table, tableSquares, flip, whiteToMove);
+	}
+	
+	// Tabela com a chave de material dada, ou null se não houver
+	private static TableFile find(TableFile[] tables, int key) {
+		int mask = tables.length - 1;
+		for (int i = hash(key) & mask; tables[i] != null; i = (i + 1) & mask) {
+			if (tables[i].material.key == key) {
+				return tables[i];
+			}
+		}
+		return null;
+	}
+	
+	private static int hash(int key) {
+		return (key * 0x9E3779B9) >>> 16;
+	}
+	
+	// Valor da posição com as casas na ordem da tabela, espelhando as fileiras quando as pretas são o lado mais forte
+	private int value(TableFile table, int[] squares, boolean flip, boolean whiteToMove) {
+		if (flip) {
+			for (int i = 0; i < table.material.count; i++) {
+				squares[i] ^= 56;
+			}
+		}
+		int index = table.material.index(squares);
+		int side = (whiteToMove != flip) ? 0 : 1;
+		int value = value(table, side, index);
+		return (value == ILLEGAL) ? NOT_FOUND : value;
+	}
+	
+	// Valor de uma posição da tabela, com o jogador da vez (0 para o lado mais forte) e o índice
+	private int value(TableFile table, int side, int index) {
+		long position = (long)side * table.material.size + index;
+		byte[] block = block(table, (int)(position / BLOCK_SIZE));
+		return block[(int)(position % BLOCK_SIZE)];
+	}
+	
+	// Bloco descomprimido de uma tabela, pelo cache ou lido do arquivo mapeado
+	private byte[] block(TableFile table, int block) {
+		long key = ((long)table.id << 32) | block;
+		int slot = (int)((key * 0x9E3779B97F4A7C15L) >>> 40) & cacheMask;
+		CachedBlock cached = cache[slot];
+		if (cached != null && cached.key == key) {
+			hits.increment();
+			return cached.data;
+		}
+		misses.increment();
+		
+		// O bloco comprimido é lido direto do arquivo mapeado, sem cópia, pelo descompressor da thread
+		int start = (int)table.offsets[block];
+		ByteBuffer compressed = table.data.duplicate();
+		compressed.limit((int)table.offsets[block + 1]).position(start);
+		long total = 2L * table.material.size;
+		byte[] data = new byte[(int)Math.min(BLOCK_SIZE, total - (long)block * BLOCK_SIZE)];
+		Inflater inflater = inflaters.get();
+		inflater.reset();
+		try {
+			inflater.setInput(compressed);
+			int size = 0;
+			while (size < data.length && !inflater.finished()) {
+				size += inflater.inflate(data, size, data.length - size);
+			}
+		} catch (DataFormatException e) {
+			throw new ChessException("Tabela de finais corrompida: " + table.material.signature);
+		}
+		
+		cache[slot] = new CachedBlock(key, data);
+		return data;
+	}
+	
+	// Carrega (ou recarrega, depois de gerada) a tabela de um arquivo
+	synchronized void load(Path file) throws IOException {
+		String name = file.getFileName().toString();
+		TablebaseMaterial material = TablebaseMaterial.of(name.substring(0, name.length() - EXTENSION.length()));
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			MappedByteBuffer data = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (data.getInt(0) != MAGIC || data.getShort(4) != VERSION || data.getInt(8) != material.size) {
+				throw new ChessException("Tabela de finais inválida: " + file);
+			}
+			int blocks = data.getInt(12);
+			long[] offsets = new long[blocks + 1];
+			for (int i = 0; i <= blocks; i++) {
+				offsets[i] = data.getLong(16 + 8 * i);
+			}
+			TableFile previous = tables.put(material.signature, new TableFile(++nextId, material, channel, data, offsets));
+			if (previous != null) {
+				previous.channel.close();
+			}
+			lookup = buildLookup();
+			maxPieces = Math.max(maxPieces, material.count);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	// Tabela de endereçamento aberto com todas as tabelas carregadas, com ao menos metade das posições livres
+	private TableFile[] buildLookup() {
+		TableFile[] result = new TableFile[Integer.highestOneBit(Math.max(1, tables.size())) * 4];
+		int mask = result.length - 1;
+		for (TableFile table : tables.values()) {
+			int i = hash(table.material.key) & mask;
+			while (result[i] != null) {
+				i = (i + 1) & mask;
+			}
+			result[i] = table;
+		}
+		return result;
+	}
+	
+	Path path(TablebaseMaterial material) {
+		return directory.resolve(material.signature + EXTENSION);
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		for (TableFile table : tables.values()) {
+			table.channel.close();
+		}
+		tables.clear();
+		lookup = new TableFile[1];
+		Arrays.fill(cache, null);
+	}
+	
+	// Cabeçalho do arquivo: assinatura, versão, posições por jogador da vez, quantidade de blocos e posição de cada bloco
+	static ByteBuffer header(int size, long[] offsets) {
+		ByteBuffer header = ByteBuffer.allocate(16 + 8 * offsets.length);
+		header.putInt(MAGIC);
+		header.putShort(VERSION);
+		header.putShort((short)0);
+		header.putInt(size);
+		header.putInt(offsets.length - 1);
+		for (long offset : offsets) {
+			header.putLong(offset);
+		}
+		header.flip();
+		return header;
+	}
+	
+}
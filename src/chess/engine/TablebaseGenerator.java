@@ -0,0 +1,516 @@
+package chess.engine;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import chess.Bitboards;
+import chess.ChessException;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+/* Geração de tabelas de finais de 3 a 5 peças por análise retrógrada
+ * Primeiro cada posição é examinada uma vez: posições impossíveis são marcadas, os xeque-mates e afogamentos
+ * são resolvidos, os lances que saem da tabela (capturas e promoções) são avaliados pelas tabelas menores,
+ * e os lances que ficam na tabela são contados. Depois, nível a nível (em meios-lances até o xeque-mate), cada posição
+ * resolvida é desfeita lance a lance: os antecessores de uma derrota são vitórias, e um antecessor de uma vitória
+ * é derrota quando todos os seus lances levam a vitórias do adversário. O que não é resolvido é empate.
+ * As regras dos lances são as mesmas das peças (pelos ataques dos bitboards); o En Passant e o Roque
+ * não fazem parte das tabelas
+ */
+public class TablebaseGenerator {
+	
+	private static final int MAX_PLIES = 253;
+	private static final byte NO_EXIT = Byte.MIN_VALUE;
+	
+	private final Tablebase tablebase;
+	private final PrintStream log;
+	
+	// Tabela em geração: valor, lances restantes na tabela e melhor lance para fora da tabela de cada posição
+	private TablebaseMaterial material;
+	private byte[][] values;
+	private byte[][] counts;
+	private byte[][] exits;
+	
+	// Posições resolvidas por nível, para serem desfeitas em ordem de distância até o xeque-mate
+	private int[][] levels;
+	private int[] levelSizes;
+	
+	// Vetores de trabalho
+	private int[] squares = new int[5];
+	private int[] moved = new int[5];
+	private int[] related = new int[Move.MAX_MOVES];
+	private int legalMoves;
+	private int exitBest;
+	
+	// Gera as tabelas no diretório do "tablebase", que passa a consultá-las
+	public TablebaseGenerator(Tablebase tablebase, PrintStream log) {
+		this.tablebase = tablebase;
+		this.log = log;
+	}
+	
+	/* Gera a tabela de um material (por exemplo "KQvKR") e, antes dela, as tabelas menores de que ela depende
+	 * Tabelas que já existem não são geradas de novo
+	 */
+	public void generate(String signature) throws IOException {
+		TablebaseMaterial target = TablebaseMaterial.of(signature);
+		if (tablebase.contains(target.signature)) {
+			return;
+		}
+		for (String dependency : dependencies(target.signature)) {
+			generate(dependency);
+		}
+		build(target);
+	}
+	
+	// Materiais alcançáveis por uma captura ou uma promoção, com ao menos 3 peças
+	private static Set<String> dependencies(String signature) {
+		Set<String> result = new LinkedHashSet<>();
+		for (int i = 0; i < signature.length(); i++) {
+			char c = signature.charAt(i);
+			if (c == 'K' || c == 'v') {
+				continue;
+			}
+			String removed = signature.substring(0, i) + signature.substring(i + 1);
+			if (removed.length() >= 4) {
+				result.add(TablebaseMaterial.of(removed).signature);
+			}
+			if (c == 'P') {
+				for (char promotion : new char[] { 'Q', 'R', 'B', 'N' }) {
+					result.add(TablebaseMaterial.of(signature.substring(0, i) + promotion + signature.substring(i + 1)).signature);
+				}
+			}
+		}
+		return result;
+	}
+	
+	private void build(TablebaseMaterial target) throws IOException {
+		long start = System.currentTimeMillis();
+		material = target;
+		int size = target.size;
+		values = new byte[2][size];
+		counts = new byte[2][size];
+		exits = new byte[2][size];
+		levels = new int[MAX_PLIES + 2][];
+		levelSizes = new int[MAX_PLIES + 2];
+		
+		initialize();
+		int maxLevel = propagate();
+		
+		Path path = tablebase.path(target);
+		write(path);
+		values = null;
+		counts = null;
+		exits = null;
+		levels = null;
+		tablebase.load(path);
+		
+		if (log != null) {
+			log.printf("%s: %d posições, %d meios-lances até o xeque-mate mais longo, %.1f s%n", target.signature, 2L * size,
+					Math.max(0, maxLevel), (System.currentTimeMillis() - start) / 1000.0);
+		}
+	}
+	
+	// Primeira passagem: posições impossíveis, xeque-mates, afogamentos, saídas da tabela e lances na tabela
+	private void initialize() {
+		for (int side = 0; side < 2; side++) {
+			byte[] value = values[side];
+			for (int index = 0; index < material.size; index++) {
+				material.decode(index, squares);
+				if (!isLegal(side, index)) {
+					value[index] = Tablebase.ILLEGAL;
+					continue;
+				}
+				
+				int count = successors(side, squares, related);
+				counts[side][index] = (byte)count;
+				exits[side][index] = (byte)exitBest;
+				if (legalMoves == 0) {
+					boolean inCheck = isAttacked(squares[side], side == 1, occupancy(squares), squares, -1);
+					if (inCheck) {
+						value[index] = loss(0);
+						add(0, side, index);
+					}
+					continue;
+				}
+				
+				// Sem lances na tabela, a posição vale o melhor lance para fora dela
+				if (exitBest != NO_EXIT && exitBest != 0) {
+					int plies = Tablebase.plies(exitBest);
+					if (count == 0) {
+						value[index] = (byte)exitBest;
+					}
+					if (count == 0 || exitBest > 0) {
+						add(plies, side, index);
+					}
+				}
+			}
+		}
+	}
+	
+	// Propaga os resultados nível a nível, retornando o nível do xeque-mate mais longo
+	private int propagate() {
+		int maxLevel = -1;
+		for (int level = 0; level <= MAX_PLIES; level++) {
+			int size = levelSizes[level];
+			for (int n = 0; n < size; n++) {
+				int code = levels[level][n];
+				int side = code & 1;
+				int index = code >>> 1;
+				
+				// Vitórias por saídas da tabela só valem se a posição não foi resolvida antes por um caminho mais curto
+				int value = values[side][index];
+				if (value == 0 && (level & 1) == 1) {
+					values[side][index] = win(level);
+					value = values[side][index];
+				}
+				if (value == 0 || Tablebase.plies(value) != level) {
+					continue;
+				}
+				maxLevel = level;
+				
+				material.decode(index, squares);
+				int count = predecessors(side, squares, related);
+				int other = 1 - side;
+				for (int i = 0; i < count; i++) {
+					int previous = related[i];
+					if (values[other][previous] != 0) {
+						continue;
+					}
+					if (value < 0) {
+						// Uma vitória de mesma distância por uma saída da tabela já está na lista do próximo nível
+						values[other][previous] = win(level + 1);
+						if (exits[other][previous] != values[other][previous]) {
+							add(level + 1, other, previous);
+						}
+					}
+					else if (--counts[other][previous] == 0) {
+						int exit = exits[other][previous];
+						if (exit == NO_EXIT || exit < 0) {
+							int plies = (exit == NO_EXIT) ? level + 1 : Math.max(level + 1, Tablebase.plies(exit));
+							values[other][previous] = loss(plies);
+							add(plies, other, previous);
+						}
+					}
+				}
+			}
+			levels[level] = null;
+		}
+		return maxLevel;
+	}
+	
+	/* Lances legais do jogador da vez: escreve em "out" os índices (sem repetição) das posições seguintes na tabela
+	 * e retorna quantos são; também atualiza "legalMoves" e "exitBest", o melhor valor entre os lances para fora da tabela
+	 */
+	private int successors(int side, int[] squares, int[] out) {
+		boolean white = side == 0;
+		long occupied = occupancy(squares);
+		long own = colorOccupancy(squares, white);
+		int count = 0;
+		legalMoves = 0;
+		exitBest = NO_EXIT;
+		
+		for (int slot = 0; slot < material.count; slot++) {
+			if (material.white[slot] != white) {
+				continue;
+			}
+			int from = squares[slot];
+			PieceType type = material.types[slot];
+			long targets;
+			if (type == PieceType.PEAO) {
+				targets = pawnPushes(from, white, occupied) | (Bitboards.pawnAttacksFrom(white ? Color.BRANCO : Color.PRETO, from) & occupied & ~own);
+			}
+			else {
+				targets = attacks(type, from, occupied) & ~own;
+			}
+			
+			while (targets != 0) {
+				int to = Bitboards.firstSquare(targets);
+				targets &= targets - 1;
+				int captured = slotAt(squares, to);
+				System.arraycopy(squares, 0, moved, 0, material.count);
+				moved[slot] = to;
+				long after = (occupied ^ Bitboards.bit(from)) | Bitboards.bit(to);
+				if (isAttacked(moved[white ? 0 : 1], !white, after, moved, captured)) {
+					continue;
+				}
+				legalMoves++;
+				
+				boolean promotion = type == PieceType.PEAO && (Bitboards.row(to) == 0 || Bitboards.row(to) == 7);
+				if (captured < 0 && !promotion) {
+					out[count++] = material.index(moved);
+					continue;
+				}
+				if (!promotion) {
+					updateExit(captured, null, slot);
+					continue;
+				}
+				for (PieceType promoted : new PieceType[] { PieceType.DAMA, PieceType.TORRE, PieceType.BISPO, PieceType.CAVALO }) {
+					updateExit(captured, promoted, slot);
+				}
+			}
+		}
+		return unique(out, count);
+	}
+	
+	// Avalia pelas tabelas menores um lance que captura uma peça ou promove um peão (posição em "moved")
+	private void updateExit(int captured, PieceType promoted, int slot) {
+		int count = 0;
+		PieceType[] types = new PieceType[material.count];
+		boolean[] white = new boolean[material.count];
+		int[] childSquares = new int[material.count];
+		for (int i = 0; i < material.count; i++) {
+			if (i == captured) {
+				continue;
+			}
+			types[count] = (i == slot && promoted != null) ? promoted : material.types[i];
+			white[count] = material.white[i];
+			childSquares[count] = moved[i];
+			count++;
+		}
+		boolean whiteMoved = material.white[slot];
+		int child = tablebase.probe(types, white, childSquares, count, !whiteMoved);
+		if (child == Tablebase.NOT_FOUND) {
+			throw new ChessException("Tabela de finais necessária não encontrada para " + material.signature);
+		}
+		
+		// O valor para quem joga é o inverso do valor da posição seguinte, um meio-lance mais longe do xeque-mate
+		int value = (child < 0) ? win(Tablebase.plies(child) + 1) : (child > 0) ? loss(Tablebase.plies(child) + 1) : 0;
+		if (exitBest == NO_EXIT || Tablebase.rank(value) > Tablebase.rank(exitBest)) {
+			exitBest = value;
+		}
+	}
+	
+	/* Lances desfeitos: escreve em "out" os índices (sem repetição) das posições anteriores na tabela, com o outro
+	 * jogador da vez, a partir das quais um lance sem captura nem promoção leva à posição dada
+	 */
+	private int predecessors(int side, int[] squares, int[] out) {
+		boolean white = side == 1;
+		long occupied = occupancy(squares);
+		int count = 0;
+		for (int slot = 0; slot < material.count; slot++) {
+			if (material.white[slot] != white) {
+				continue;
+			}
+			int to = squares[slot];
+			PieceType type = material.types[slot];
+			long origins;
+			if (type == PieceType.PEAO) {
+				origins = pawnOrigins(to, white, occupied);
+			}
+			else {
+				origins = attacks(type, to, occupied) & ~occupied;
+			}
+			while (origins != 0) {
+				int from = Bitboards.firstSquare(origins);
+				origins &= origins - 1;
+				System.arraycopy(squares, 0, moved, 0, material.count);
+				moved[slot] = from;
+				out[count++] = material.index(moved);
+			}
+		}
+		return unique(out, count);
+	}
+	
+	// Avanços de um peão para casas vazias (o avanço duplo a partir da fileira inicial)
+	private static long pawnPushes(int from, boolean white, long occupied) {
+		int forward = white ? -8 : 8;
+		int one = from + forward;
+		if ((occupied & Bitboards.bit(one)) != 0) {
+			return 0;
+		}
+		long pushes = Bitboards.bit(one);
+		if (Bitboards.row(from) == (white ? 6 : 1) && (occupied & Bitboards.bit(one + forward)) == 0) {
+			pushes |= Bitboards.bit(one + forward);
+		}
+		return pushes;
+	}
+	
+	// Casas de onde um peão pode ter avançado até a casa dada
+	private static long pawnOrigins(int to, boolean white, long occupied) {
+		int back = white ? 8 : -8;
+		int one = to + back;
+		if (Bitboards.row(one) == (white ? 7 : 0) || (occupied & Bitboards.bit(one)) != 0) {
+			return 0;
+		}
+		long origins = Bitboards.bit(one);
+		if (Bitboards.row(to) == (white ? 4 : 3) && (occupied & Bitboards.bit(one + back)) == 0) {
+			origins |= Bitboards.bit(one + back);
+		}
+		return origins;
+	}
+	
+	private static long attacks(PieceType type, int square, long occupied) {
+		switch (type) {
+		case CAVALO: return Bitboards.knightAttacksFrom(square);
+		case BISPO: return Bitboards.bishopAttacks(square, occupied);
+		case TORRE: return Bitboards.rookAttacks(square, occupied);
+		case DAMA: return Bitboards.queenAttacks(square, occupied);
+		default: return Bitboards.kingAttacksFrom(square);
+		}
+	}
+	
+	// Verifica se a casa é atacada pelas peças de uma cor, ignorando a peça capturada ("skip")
+	private boolean isAttacked(int square, boolean byWhite, long occupied, int[] squares, int skip) {
+		for (int slot = 0; slot < material.count; slot++) {
+			if (slot == skip || material.white[slot] != byWhite) {
+				continue;
+			}
+			long attacks;
+			if (material.types[slot] == PieceType.PEAO) {
+				attacks = Bitboards.pawnAttacksFrom(byWhite ? Color.BRANCO : Color.PRETO, squares[slot]);
+			}
+			else {
+				attacks = attacks(material.types[slot], squares[slot], occupied);
+			}
+			if ((attacks & Bitboards.bit(square)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/* Uma posição da tabela é possível se as peças estão em casas diferentes, os peões fora da primeira e da última fileira,
+	 * o índice é o canônico da posição e o jogador que acabou de jogar não está em xeque
+	 */
+	private boolean isLegal(int side, int index) {
+		long occupied = 0;
+		for (int slot = 0; slot < material.count; slot++) {
+			long bit = Bitboards.bit(squares[slot]);
+			if ((occupied & bit) != 0) {
+				return false;
+			}
+			int row = Bitboards.row(squares[slot]);
+			if (material.types[slot] == PieceType.PEAO && (row == 0 || row == 7)) {
+				return false;
+			}
+			occupied |= bit;
+		}
+		if (material.index(squares) != index) {
+			return false;
+		}
+		int otherKing = squares[1 - side];
+		return !isAttacked(otherKing, side == 0, occupied, squares, -1);
+	}
+	
+	private long occupancy(int[] squares) {
+		long occupied = 0;
+		for (int slot = 0; slot < material.count; slot++) {
+			occupied |= Bitboards.bit(squares[slot]);
+		}
+		return occupied;
+	}
+	
+	private long colorOccupancy(int[] squares, boolean white) {
+		long occupied = 0;
+		for (int slot = 0; slot < material.count; slot++) {
+			if (material.white[slot] == white) {
+				occupied |= Bitboards.bit(squares[slot]);
+			}
+		}
+		return occupied;
+	}
+	
+	private int slotAt(int[] squares, int square) {
+		for (int slot = 0; slot < material.count; slot++) {
+			if (squares[slot] == square) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+	
+	// Ordena e remove os índices repetidos (posições simétricas alcançadas por lances diferentes), retornando quantos restam
+	private static int unique(int[] indexes, int count) {
+		if (count < 2) {
+			return count;
+		}
+		Arrays.sort(indexes, 0, count);
+		int size = 1;
+		for (int i = 1; i < count; i++) {
+			if (indexes[i] != indexes[size - 1]) {
+				indexes[size++] = indexes[i];
+			}
+		}
+		return size;
+	}
+	
+	private void add(int level, int side, int index) {
+		if (level > MAX_PLIES) {
+			throw new ChessException("Distância até o xeque-mate longa demais na tabela " + material.signature);
+		}
+		int[] list = levels[level];
+		if (list == null) {
+			list = levels[level] = new int[1024];
+		}
+		else if (levelSizes[level] == list.length) {
+			list = levels[level] = Arrays.copyOf(list, list.length * 2);
+		}
+		list[levelSizes[level]++] = (index << 1) | side;
+	}
+	
+	private static byte win(int plies) {
+		return (byte)((plies + 1) / 2);
+	}
+	
+	private static byte loss(int plies) {
+		return (byte)(-(plies / 2) - 1);
+	}
+	
+	// Grava os valores (primeiro com o lado mais forte na vez, depois o mais fraco) em blocos comprimidos
+	private void write(Path path) throws IOException {
+		long total = 2L * material.size;
+		int blocks = (int)((total + Tablebase.BLOCK_SIZE - 1) / Tablebase.BLOCK_SIZE);
+		List<byte[]> compressed = new ArrayList<>(blocks);
+		long[] offsets = new long[blocks + 1];
+		offsets[0] = 16 + 8L * (blocks + 1);
+		
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		byte[] block = new byte[Tablebase.BLOCK_SIZE];
+		byte[] output = new byte[Tablebase.BLOCK_SIZE + 1024];
+		try {
+			for (int i = 0; i < blocks; i++) {
+				int length = (int)Math.min(Tablebase.BLOCK_SIZE, total - (long)i * Tablebase.BLOCK_SIZE);
+				for (int j = 0; j < length; j++) {
+					long position = (long)i * Tablebase.BLOCK_SIZE + j;
+					block[j] = values[(int)(position / material.size)][(int)(position % material.size)];
+				}
+				deflater.reset();
+				deflater.setInput(block, 0, length);
+				deflater.finish();
+				int size = 0;
+				while (!deflater.finished()) {
+					size += deflater.deflate(output, size, output.length - size);
+				}
+				compressed.add(Arrays.copyOf(output, size));
+				offsets[i + 1] = offsets[i] + size;
+			}
+		} finally {
+			deflater.end();
+		}
+		
+		try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = Tablebase.header(material.size, offsets);
+			while (header.hasRemaining()) {
+				out.write(header);
+			}
+			for (byte[] data : compressed) {
+				ByteBuffer buffer = ByteBuffer.wrap(data);
+				while (buffer.hasRemaining()) {
+					out.write(buffer);
+				}
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,233 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessException;
+import chess.PieceType;
+
+/* Material de uma tabela de finais, identificado por uma assinatura como "KQvKR" (peças do lado mais forte, "v",
+ * peças do lado mais fraco, com as letras inglesas K, Q, R, B, N e P).
+ * Nas tabelas, o lado mais forte é sempre o das brancas e as peças ficam na ordem: Rei branco, Rei preto,
+ * demais peças brancas e demais peças pretas (do tipo mais valioso para o menos valioso).
+ * O índice de uma posição usa a simetria do tabuleiro: sem peões, o Rei branco fica no triângulo a1-d1-d4 (10 casas),
+ * e com peões, nas colunas a-d (32 casas); cada outra peça ocupa 6 bits
+ */
+final class TablebaseMaterial {
+	
+	static final String LETTERS = "PNBRQK";
+	
+	private static final PieceType[] TYPES = PieceType.values();
+	
+	// Índice das casas do triângulo a1-d1-d4 (-1 fora dele) e a casa de cada índice
+	private static final int[] TRIANGLE = new int[64];
+	private static final int[] TRIANGLE_SQUARES = new int[10];
+	
+	static {
+		int index = 0;
+		for (int square = 0; square < 64; square++) {
+			TRIANGLE[square] = -1;
+		}
+		for (int file = 0; file < 4; file++) {
+			for (int rank = 0; rank <= file; rank++) {
+				int square = Bitboards.square(7 - rank, file);
+				TRIANGLE[square] = index;
+				TRIANGLE_SQUARES[index++] = square;
+			}
+		}
+	}
+	
+	final String signature;
+	final PieceType[] types;
+	final boolean[] white;
+	final int count;
+	final boolean pawns;
+	
+	// Chave do material (ver "shift"), que identifica a tabela sem comparar assinaturas
+	final int key;
+	
+	// Quantidade de posições para cada jogador da vez
+	final int size;
+	
+	private TablebaseMaterial(String signature, PieceType[] types, boolean[] white) {
+		this.signature = signature;
+		this.types = types;
+		this.white = white;
+		this.count = types.length;
+		boolean anyPawn = false;
+		for (PieceType type : types) {
+			anyPawn |= type == PieceType.PEAO;
+		}
+		this.pawns = anyPawn;
+		int materialKey = 0;
+		for (int i = 2; i < count; i++) {
+			materialKey += 1 << shift(types[i], white[i]);
+		}
+		this.key = materialKey;
+		long positions = pawns ? 32 : 10;
+		for (int i = 1; i < count; i++) {
+			positions *= 64;
+		}
+		if (positions > Integer.MAX_VALUE / 2) {
+			throw new ChessException("Tabela grande demais: " + signature);
+		}
+		this.size = (int)positions;
+	}
+	
+	// Lê uma assinatura, colocando o lado mais forte primeiro e as peças de cada lado em ordem
+	static TablebaseMaterial of(String signature) {
+		int separator = signature.indexOf('v');
+		if (separator < 0) {
+			throw new ChessException("Assinatura de tabela inválida: " + signature);
+		}
+		String strong = sort(signature.substring(0, separator));
+		String weak = sort(signature.substring(separator + 1));
+		if (!isStrongerOrEqual(strong, weak)) {
+			String side = strong;
+			strong = weak;
+			weak = side;
+		}
+		int total = strong.length() + weak.length();
+		if (total < 3 || total > 5 || !strong.startsWith("K") || !weak.startsWith("K")
+				|| strong.indexOf('K', 1) >= 0 || weak.indexOf('K', 1) >= 0) {
+			throw new ChessException("Assinatura de tabela inválida: " + signature);
+		}
+		
+		PieceType[] types = new PieceType[total];
+		boolean[] white = new boolean[total];
+		types[0] = PieceType.REI;
+		white[0] = true;
+		types[1] = PieceType.REI;
+		int slot = 2;
+		for (int i = 1; i < strong.length(); i++, slot++) {
+			types[slot] = type(strong.charAt(i), signature);
+			white[slot] = true;
+		}
+		for (int i = 1; i < weak.length(); i++, slot++) {
+			types[slot] = type(weak.charAt(i), signature);
+		}
+		return new TablebaseMaterial(strong + "v" + weak, types, white);
+	}
+	
+	/* Posição na chave do material da quantidade de peças de um tipo (exceto o Rei) do lado mais forte ou do mais fraco,
+	 * com 3 bits para cada quantidade: a chave é a soma de 1 << shift de cada peça
+	 */
+	static int shift(PieceType type, boolean strong) {
+		return 3 * (strong ? type.ordinal() : type.ordinal() + 5);
+	}
+	
+	// Letras das peças em ordem do tipo mais valioso para o menos valioso (o Rei primeiro)
+	static String sort(String letters) {
+		char[] chars = letters.toUpperCase().toCharArray();
+		for (int i = 1; i < chars.length; i++) {
+			char c = chars[i];
+			int j = i - 1;
+			while (j >= 0 && LETTERS.indexOf(chars[j]) < LETTERS.indexOf(c)) {
+				chars[j + 1] = chars[j];
+				j--;
+			}
+			chars[j + 1] = c;
+		}
+		return new String(chars);
+	}
+	
+	/* Verifica se o primeiro lado (letras já ordenadas) é o mais forte pelo material, com empates decididos
+	 * pela comparação das peças em ordem, para que cada material tenha uma única orientação
+	 */
+	static boolean isStrongerOrEqual(String first, String second) {
+		int difference = weight(first) - weight(second);
+		if (difference != 0) {
+			return difference > 0;
+		}
+		for (int i = 0; i < Math.min(first.length(), second.length()); i++) {
+			int compare = LETTERS.indexOf(first.charAt(i)) - LETTERS.indexOf(second.charAt(i));
+			if (compare != 0) {
+				return compare > 0;
+			}
+		}
+		return first.length() >= second.length();
+	}
+	
+	private static int weight(String letters) {
+		int weight = 0;
+		for (int i = 0; i < letters.length(); i++) {
+			int type = LETTERS.indexOf(letters.charAt(i));
+			weight += (type == PieceType.REI.ordinal()) ? 0 : Search.VALUES[type];
+		}
+		return weight;
+	}
+	
+	private static PieceType type(char letter, String signature) {
+		int type = LETTERS.indexOf(letter);
+		if (type < 0 || type == PieceType.REI.ordinal()) {
+			throw new ChessException("Assinatura de tabela inválida: " + signature);
+		}
+		return TYPES[type];
+	}
+	
+	/* Índice da posição com as casas das peças na ordem da tabela
+	 * Escolhe a simetria que leva o Rei branco para a região canônica; sem peões, com o Rei na diagonal a1-h8,
+	 * a primeira peça fora da diagonal decide o espelhamento, para que posições simétricas tenham o mesmo índice
+	 */
+	int index(int[] squares) {
+		int king = squares[0];
+		int transform = 0;
+		if (Bitboards.column(king) > 3) {
+			transform |= 1;
+		}
+		if (!pawns) {
+			if (rank(transform(king, transform)) > 3) {
+				transform |= 2;
+			}
+			int square = transform(king, transform);
+			if (rank(square) > Bitboards.column(square)) {
+				transform |= 4;
+			}
+			else if (rank(square) == Bitboards.column(square)) {
+				for (int i = 1; i < count; i++) {
+					int other = transform(squares[i], transform);
+					if (rank(other) != Bitboards.column(other)) {
+						if (rank(other) > Bitboards.column(other)) {
+							transform |= 4;
+						}
+						break;
+					}
+				}
+			}
+		}
+		
+		int square = transform(king, transform);
+		int index = pawns ? Bitboards.row(square) * 4 + Bitboards.column(square) : TRIANGLE[square];
+		for (int i = 1; i < count; i++) {
+			index = (index << 6) | transform(squares[i], transform);
+		}
+		return index;
+	}
+	
+	// Casas das peças de um índice (o inverso de "index" para posições canônicas)
+	void decode(int index, int[] squares) {
+		for (int i = count - 1; i > 0; i--) {
+			squares[i] = index & 63;
+			index >>>= 6;
+		}
+		squares[0] = pawns ? Bitboards.square(index / 4, index % 4) : TRIANGLE_SQUARES[index];
+	}
+	
+	// Simetrias: bit 1 espelha as colunas, bit 2 espelha as fileiras e bit 4 reflete na diagonal a1-h8
+	private static int transform(int square, int transform) {
+		if ((transform & 1) != 0) {
+			square ^= 7;
+		}
+		if ((transform & 2) != 0) {
+			square ^= 56;
+		}
+		if ((transform & 4) != 0) {
+			square = Bitboards.square(7 - Bitboards.column(square), 7 - Bitboards.row(square));
+		}
+		return square;
+	}
+	
+	// Fileira da casa a partir da primeira fileira (0 para a1)
+	private static int rank(int square) {
+		return 7 - Bitboards.row(square);
+	}
+	
+}
@@ -0,0 +1,168 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/* Tabela de transposição de tamanho fixo, compartilhável entre várias threads de busca
+ * Cada entrada ocupa dois longs de um vetor primitivo (sem objetos por entrada, para não pesar no coletor de lixo):
+ * o primeiro guarda a chave da posição em XOR com os dados e o segundo guarda os dados (lance, avaliação, profundidade,
+ * tipo de limite e geração). Uma leitura só é aceita se o XOR das duas palavras reproduz a chave, o que descarta
+ * entradas de outras posições e entradas corrompidas por escritas simultâneas, sem precisar de travas.
+ * As entradas são agrupadas em baldes de quatro (64 bytes); ao gravar, substitui-se a entrada da mesma posição
+ * ou, senão, a de menor profundidade e mais antiga
+ */
+public class TranspositionTable {
+
+	// Tipos de limite da avaliação guardada (nunca zero, para que dados válidos não sejam confundidos com entrada vazia)
+	public static final int UPPER_BOUND = 1;
+	public static final int LOWER_BOUND = 2;
+	public static final int EXACT = 3;
+	
+	public static final long NO_ENTRY = 0L;
+	
+	private static final int BUCKET_SIZE = 4;
+	
+	// Tamanho máximo em megabytes: um vetor Java tem menos de 2^31 posições, então o vetor fica em 2^30 longs (2^27 baldes)
+	public static final int MAX_SIZE = 8192;
+	
+	private long[] table;
+	private long bucketMask;
+	private int generation;
+	
+	// Cria uma tabela com o tamanho dado em megabytes (arredondado para baixo para uma potência de dois de baldes)
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) {
+			throw new IllegalArgumentException("O tamanho da tabela deve ser de ao menos 1 MB");
+		}
+		long buckets = Long.highestOneBit(Math.min(megabytes, MAX_SIZE) * (1L << 20) / (BUCKET_SIZE * 16));
+		table = new long[(int)(buckets * BUCKET_SIZE * 2)];
+		bucketMask = buckets - 1;
+	}
+	
+	// Apaga todas as entradas
+	public void clear() {
+		Arrays.fill(table, 0L);
+		generation = 0;
+	}
+	
+	// Avança a geração a cada nova busca, para que entradas de buscas antigas sejam substituídas primeiro
+	public void newSearch() {
+		generation = (generation + 1) & 0xFF;
+	}
+	
+	/* Procura a posição pela chave e retorna os dados da entrada (decodificados pelos métodos estáticos)
+	 * ou NO_ENTRY se a posição não estiver na tabela
+	 */
+	public long probe(long key) {
+		int index = bucketIndex(key);
+		for (int i = 0; i < BUCKET_SIZE; i++, index += 2) {
+			long data = table[index + 1];
+			if (data != NO_ENTRY && (table[index] ^ data) == key) {
+				return data;
+			}
+		}
+		return NO_ENTRY;
+	}
+	
+	/* Grava o resultado da busca de uma posição
+	 * A avaliação deve estar ajustada para a posição (ver "scoreToTable"), e o lance pode ser Move.NONE
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		int index = bucketIndex(key);
+		int replace = index;
+		int replaceValue = Integer.MAX_VALUE;
+		for (int i = 0; i < BUCKET_SIZE; i++, index += 2) {
+			long data = table[index + 1];
+			if (data == NO_ENTRY || (table[index] ^ data) == key) {
+				
+				// Entrada da mesma posição: mantém um resultado bem mais profundo e preserva o lance conhecido
+				if (data != NO_ENTRY) {
+					if (bound != EXACT && depth < depth(data) - 2 && generation(data) == generation) {
+						return;
+					}
+					if (move == 0) {
+						move = move(data);
+					}
+				}
+				replace = index;
+				break;
+			}
+			
+			// Valor de substituição: entradas rasas e de gerações antigas são as primeiras a sair
+			int age = (generation - generation(data)) & 0xFF;
+			int value = depth(data) - 8 * age;
+			if (value < replaceValue) {
+				replaceValue = value;
+				replace = index;
+			}
+		}
+		long data = pack(move, score, depth, bound, generation);
+		table[replace] = key ^ data;
+		table[replace + 1] = data;
+	}
+	
+	// Estimativa, em milésimos, de quanto da tabela está ocupada por entradas da busca atual
+	public int hashfull() {
+		int used = 0;
+		int samples = Math.min(1000, table.length / 2);
+		for (int i = 0; i < samples; i++) {
+			long data = table[2 * i + 1];
+			if (data != NO_ENTRY && generation(data) == generation) {
+				used++;
+			}
+		}
+		return used * 1000 / samples;
+	}
+	
+	private int bucketIndex(long key) {
+		return (int)((key & bucketMask) * BUCKET_SIZE * 2);
+	}
+	
+	private static long pack(int move, int score, int depth, int bound, int generation) {
+		return (move & 0xFFFFL) | ((score & 0xFFFFL) << 16) | ((depth & 0xFFL) << 32) 
+				| ((long)bound << 40) | ((long)generation << 42);
+	}
+	
+	public static int move(long data) {
+		return (int)(data & 0xFFFF);
+	}
+	
+	public static int score(long data) {
+		return (short)(data >>> 16);
+	}
+	
+	public static int depth(long data) {
+		return (int)((data >>> 32) & 0xFF);
+	}
+	
+	public static int bound(long data) {
+		return (int)((data >>> 40) & 3);
+	}
+	
+	private static int generation(long data) {
+		return (int)((data >>> 42) & 0xFF);
+	}
+	
+	/* As avaliações de mate são relativas à raiz da busca; na tabela são guardadas relativas à própria posição,
+	 * para continuarem corretas quando a posição é encontrada em outra distância da raiz
+	 */
+	public static int scoreToTable(int score, int ply) {
+		if (score >= Search.MATE - Search.MAX_PLY) {
+			return score + ply;
+		}
+		if (score <= -Search.MATE + Search.MAX_PLY) {
+			return score - ply;
+		}
+		return score;
+	}
+	
+	public static int scoreFromTable(int score, int ply) {
+		if (score >= Search.MATE - Search.MAX_PLY) {
+			return score - ply;
+		}
+		if (score <= -Search.MATE + Search.MAX_PLY) {
+			return score + ply;
+		}
+		return score;
+	}
+	
+}
@@ -0,0 +1,88 @@
+package chess.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.FenParser;
+
+/* Leitura de arquivos com uma posição FEN por linha (como os arquivos de testes de Perft e de posições)
+ * O arquivo é lido em blocos por um canal para um buffer reutilizado, e cada linha é entregue ao mesmo
+ * FenParser, de modo que a leitura não cria objetos por posição
+ */
+public class FenReader {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	// Recebe cada posição válida do arquivo; o leitor é reutilizado e só vale durante a chamada
+	public interface Handler {
+		void position(FenParser fen, long line);
+	}
+	
+	private final FenParser parser = new FenParser();
+	private final byte[] line = new byte[BUFFER_SIZE];
+	private long invalidLines;
+	
+	// Lê todas as linhas do arquivo, retornando o número de posições válidas entregues ao handler
+	public long read(Path path, Handler handler) throws IOException {
+		invalidLines = 0;
+		long count = 0;
+		long lineNumber = 0;
+		int length = 0;
+		
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					byte b = buffer.get();
+					if (b == '\n') {
+						lineNumber++;
+						count += parseLine(length, lineNumber, handler);
+						length = 0;
+					}
+					else if (length < line.length) {
+						line[length++] = b;
+					}
+				}
+				buffer.clear();
+			}
+		}
+		
+		// Última linha sem quebra no final
+		if (length > 0) {
+			count += parseLine(length, lineNumber + 1, handler);
+		}
+		return count;
+	}
+	
+	// Linhas que não eram vazias nem FENs válidas na última leitura
+	public long getInvalidLines() {
+		return invalidLines;
+	}
+	
+	private int parseLine(int length, long lineNumber, Handler handler) {
+		int start = 0;
+		while (start < length && line[start] <= ' ') {
+			start++;
+		}
+		if (start == length || line[start] == '#') {
+			return 0;
+		}
+		
+		// Campos extras depois da FEN (como ";D1 20" dos arquivos de Perft) são ignorados
+		int end = start;
+		while (end < length && line[end] != ';') {
+			end++;
+		}
+		if (!parser.parse(line, start, end - start)) {
+			invalidLines++;
+			return 0;
+		}
+		handler.position(parser, lineNumber);
+		return 1;
+	}
+	
+}
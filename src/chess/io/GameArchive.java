@@ -0,0 +1,191 @@
+package chess.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+
+/* Arquivo binário de partidas, lido por mapeamento em memória com acesso direto a qualquer partida
+ * Formato (inteiros em big-endian):
+ *   cabeçalho: "XADZ", versão (2 bytes), reservado (2 bytes), quantidade de partidas (8 bytes), posição do índice (8 bytes)
+ *   partidas: resultado (1 byte), tamanho da FEN inicial (1 byte, 0 para a posição inicial), FEN em ASCII,
+ *             quantidade de lances (2 bytes) e os lances com 2 bytes cada
+ *   índice: posição de cada partida no arquivo (8 bytes cada)
+ * Cada lance guarda os 16 bits da codificação da classe Move (origem, destino e o tipo do lance, que inclui a promoção),
+ * então a partida é reproduzida sem gerar lances nem ler texto. As leituras usam posições absolutas nos buffers mapeados,
+ * então várias threads podem ler o mesmo arquivo ao mesmo tempo
+ */
+public class GameArchive implements Closeable {
+	
+	static final int MAGIC = 0x5841445A;
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 24;
+	static final int MAX_FEN_LENGTH = 255;
+	static final int MAX_MOVE_COUNT = 65535;
+	
+	private static final String[] RESULTS = { PgnGame.UNKNOWN_RESULT, "1-0", "0-1", "1/2-1/2" };
+	
+	/* O arquivo é mapeado em janelas de 1 GB que se sobrepõem pelo tamanho máximo de uma partida,
+	 * de modo que toda partida cabe inteira na janela em que começa
+	 */
+	private static final long SEGMENT_SIZE = 1L << 30;
+	private static final long MAX_RECORD_SIZE = 4 + MAX_FEN_LENGTH + 2L * MAX_MOVE_COUNT;
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final MappedByteBuffer index;
+	private final int gameCount;
+	
+	public GameArchive(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			if (size < HEADER_SIZE || channel.read(header, 0) != HEADER_SIZE || header.getInt(0) != MAGIC) {
+				throw new ChessException("Arquivo de partidas inválido: " + path);
+			}
+			if (header.getShort(4) != VERSION) {
+				throw new ChessException("Versão do arquivo de partidas não suportada: " + header.getShort(4));
+			}
+			long count = header.getLong(8);
+			long indexOffset = header.getLong(16);
+			if (count < 0 || count > Integer.MAX_VALUE / 8 || indexOffset < HEADER_SIZE || indexOffset + count * 8 > size) {
+				throw new ChessException("Arquivo de partidas corrompido: " + path);
+			}
+			gameCount = (int)count;
+			index = channel.map(MapMode.READ_ONLY, indexOffset, count * 8);
+			
+			segments = new MappedByteBuffer[(int)((indexOffset + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+			for (int i = 0; i < segments.length; i++) {
+				long start = i * SEGMENT_SIZE;
+				segments[i] = channel.map(MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE + MAX_RECORD_SIZE, indexOffset - start));
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	public int getGameCount() {
+		return gameCount;
+	}
+	
+	public String getResult(int game) {
+		int code = segment(game).get(position(game));
+		return RESULTS[code & 3];
+	}
+	
+	// FEN da posição inicial da partida, ou null se ela começa da posição inicial do Xadrez
+	public String getFen(int game) {
+		ByteBuffer segment = segment(game);
+		int position = position(game);
+		int length = segment.get(position + 1) & 0xFF;
+		if (length == 0) {
+			return null;
+		}
+		byte[] fen = new byte[length];
+		for (int i = 0; i < length; i++) {
+			fen[i] = segment.get(position + 2 + i);
+		}
+		return new String(fen, StandardCharsets.US_ASCII);
+	}
+	
+	public int getMoveCount(int game) {
+		ByteBuffer segment = segment(game);
+		int position = position(game);
+		return segment.getChar(position + 2 + (segment.get(position + 1) & 0xFF));
+	}
+	
+	/* Escreve os lances da partida no vetor "moves" (que deve ter espaço para eles) e retorna a quantidade de lances
+	 * Não cria objetos, para a leitura em massa
+	 */
+	public int getMoves(int game, int[] moves) {
+		ByteBuffer segment = segment(game);
+		int position = position(game);
+		position += 2 + (segment.get(position + 1) & 0xFF);
+		int count = segment.getChar(position);
+		for (int i = 0; i < count; i++) {
+			moves[i] = segment.getChar(position + 2 + 2 * i);
+		}
+		return count;
+	}
+	
+	public int[] getMoves(int game) {
+		int[] moves = new int[getMoveCount(game)];
+		getMoves(game, moves);
+		return moves;
+	}
+	
+	/* Reproduz a partida em uma nova partida, lance a lance, até a posição final, pela mesma API das jogadas interativas
+	 * (que testa a legalidade, o xeque-mate e o afogamento). Um lance que não é legal na posição indica um arquivo corrompido
+	 */
+	public ChessMatch replay(int game) {
+		String fen = getFen(game);
+		ChessMatch chessMatch = (fen == null) ? new ChessMatch() : Fen.parse(fen);
+		int[] moves = getMoves(game);
+		for (int i = 0; i < moves.length; i++) {
+			try {
+				chessMatch.performChessMove(moves[i]);
+			} catch (ChessException e) {
+				throw new ChessException("Arquivo de partidas corrompido: lance " + (i + 1) + " (" + Move.toString(moves[i]) 
+						+ ") da partida " + game + ": " + e.getMessage());
+			}
+		}
+		return chessMatch;
+	}
+	
+	// Partida com o resultado, a posição inicial e os lances, que pode ser escrita em PGN
+	public PgnGame getGame(int game) {
+		PgnGame pgnGame = new PgnGame();
+		String fen = getFen(game);
+		if (fen != null) {
+			pgnGame.setTag("SetUp", "1");
+			pgnGame.setTag("FEN", fen);
+		}
+		pgnGame.setResult(getResult(game));
+		for (int move : getMoves(game)) {
+			pgnGame.addMove(move);
+		}
+		return pgnGame;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	static int resultCode(String result) {
+		for (int i = 1; i < RESULTS.length; i++) {
+			if (RESULTS[i].equals(result)) {
+				return i;
+			}
+		}
+		return 0;
+	}
+	
+	private long offset(int game) {
+		if (game < 0 || game >= gameCount) {
+			throw new IndexOutOfBoundsException("Partida inexistente: " + game);
+		}
+		return index.getLong(game * 8);
+	}
+	
+	private ByteBuffer segment(int game) {
+		return segments[(int)(offset(game) / SEGMENT_SIZE)];
+	}
+	
+	private int position(int game) {
+		return (int)(offset(game) % SEGMENT_SIZE);
+	}
+	
+}
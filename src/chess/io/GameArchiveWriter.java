@@ -0,0 +1,104 @@
+package chess.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import chess.ChessException;
+
+/* Escrita de um arquivo binário de partidas (formato descrito em GameArchive)
+ * As partidas são acrescentadas em sequência por um buffer; as posições de cada partida ficam em memória
+ * e são gravadas como índice no fechamento, junto com o cabeçalho definitivo
+ */
+public class GameArchiveWriter implements Closeable {
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private long position = GameArchive.HEADER_SIZE;
+	private long[] offsets = new long[1024];
+	private int gameCount;
+	
+	public GameArchiveWriter(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(GameArchive.HEADER_SIZE);
+	}
+	
+	// Acrescenta uma partida com os lances, o resultado e a posição inicial da etiqueta "FEN" (se houver)
+	public void add(PgnGame game) throws IOException {
+		add(game.getTag("FEN"), game.getMoves(), game.getMoveCount(), game.getResult());
+	}
+	
+	// Acrescenta uma partida a partir de uma posição inicial em FEN (null para a posição inicial do Xadrez)
+	public void add(String fen, int[] moves, int moveCount, String result) throws IOException {
+		byte[] fenBytes = (fen == null) ? new byte[0] : fen.getBytes(StandardCharsets.US_ASCII);
+		if (fenBytes.length > GameArchive.MAX_FEN_LENGTH || moveCount > GameArchive.MAX_MOVE_COUNT) {
+			throw new ChessException("Partida grande demais para o arquivo: " + moveCount + " lances");
+		}
+		
+		if (gameCount == offsets.length) {
+			offsets = Arrays.copyOf(offsets, gameCount * 2);
+		}
+		offsets[gameCount++] = position;
+		
+		// Registro da partida: resultado, FEN (tamanho e texto), número de lances e dois bytes por lance
+		ensureRemaining(2 + fenBytes.length + 2);
+		buffer.put((byte)GameArchive.resultCode(result));
+		buffer.put((byte)fenBytes.length);
+		buffer.put(fenBytes);
+		buffer.putChar((char)moveCount);
+		for (int i = 0; i < moveCount; i++) {
+			ensureRemaining(2);
+			buffer.putChar((char)moves[i]);
+		}
+		position += 4 + fenBytes.length + 2L * moveCount;
+	}
+	
+	public int getGameCount() {
+		return gameCount;
+	}
+	
+	// Grava o índice no fim do arquivo e o cabeçalho com a quantidade de partidas e a posição do índice
+	@Override
+	public void close() throws IOException {
+		try {
+			long indexOffset = position;
+			for (int i = 0; i < gameCount; i++) {
+				ensureRemaining(8);
+				buffer.putLong(offsets[i]);
+			}
+			flush();
+			
+			buffer.putInt(GameArchive.MAGIC);
+			buffer.putShort(GameArchive.VERSION);
+			buffer.putShort((short)0);
+			buffer.putLong(gameCount);
+			buffer.putLong(indexOffset);
+			buffer.flip();
+			channel.write(buffer, 0);
+		} finally {
+			channel.close();
+		}
+	}
+	
+	private void ensureRemaining(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+	
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+}
@@ -0,0 +1,96 @@
+package chess.io;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+
+/* Uma partida de um arquivo PGN: as etiquetas ("Event", "White", "FEN"...), os lances codificados pela classe Move
+ * e o resultado. A partida pode ser reproduzida pela API de jogadas da partida ("performChessMove"), com as mesmas
+ * validações do jogo interativo
+ */
+public class PgnGame {
+	
+	public static final String UNKNOWN_RESULT = "*";
+	
+	private final Map<String, String> tags = new LinkedHashMap<>();
+	private int[] moves = new int[128];
+	private int moveCount;
+	private String result = UNKNOWN_RESULT;
+	private String error;
+	
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+	
+	public void setTag(String name, String value) {
+		tags.put(name, value);
+	}
+	
+	public Map<String, String> getTags() {
+		return Collections.unmodifiableMap(tags);
+	}
+	
+	public int getMoveCount() {
+		return moveCount;
+	}
+	
+	public int getMove(int index) {
+		if (index < 0 || index >= moveCount) {
+			throw new IndexOutOfBoundsException("Lance inexistente: " + index);
+		}
+		return moves[index];
+	}
+	
+	public int[] getMoves() {
+		return Arrays.copyOf(moves, moveCount);
+	}
+	
+	public void addMove(int move) {
+		if (moveCount == moves.length) {
+			moves = Arrays.copyOf(moves, moveCount * 2);
+		}
+		moves[moveCount++] = move;
+	}
+	
+	// Resultado da partida: "1-0", "0-1", "1/2-1/2" ou "*" (desconhecido ou em andamento)
+	public String getResult() {
+		return result;
+	}
+	
+	public void setResult(String result) {
+		this.result = result;
+	}
+	
+	// Mensagem do primeiro erro encontrado na leitura (os lances seguintes são descartados), ou null se não houve erro
+	public String getError() {
+		return error;
+	}
+	
+	void setError(String error) {
+		this.error = error;
+	}
+	
+	// Posição inicial da partida: a da etiqueta "FEN", se houver, ou a posição inicial do Xadrez
+	public ChessMatch initialPosition() {
+		String fen = tags.get("FEN");
+		return (fen == null) ? new ChessMatch() : Fen.parse(fen);
+	}
+	
+	// Reproduz os lances da partida a partir da posição inicial, pelas jogadas da API da partida
+	public ChessMatch replay() {
+		ChessMatch chessMatch = initialPosition();
+		for (int i = 0; i < moveCount; i++) {
+			if (chessMatch.getCheckMate()) {
+				throw new ChessException("Lance depois do xeque-mate: " + (i + 1));
+			}
+			chessMatch.performChessMove(moves[i]);
+		}
+		return chessMatch;
+	}
+	
+}
@@ -0,0 +1,434 @@
+package chess.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.San;
+
+/* Leitura de arquivos PGN em fluxo: o texto é lido em blocos de um canal (ou de janelas mapeadas em memória do arquivo)
+ * e cada partida é montada e entregue antes da próxima ser lida, de modo que arquivos de qualquer tamanho são lidos
+ * com memória constante. Os lances em SAN são convertidos para a codificação da classe Move jogando-os em uma partida;
+ * comentários, variantes e anotações numéricas ($n) são descartados.
+ * No modo paralelo, o arquivo é dividido em trechos que começam no início de uma partida, e cada trecho é lido por uma thread
+ */
+public class PgnReader implements Closeable {
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final long MAP_WINDOW = 1L << 28;
+	private static final int MAX_TOKEN = 1024;
+	
+	// Recebe cada partida lida; no modo paralelo, é chamado por várias threads ao mesmo tempo
+	public interface Handler {
+		void game(PgnGame game);
+	}
+	
+	// Canal lido em sequência, ou arquivo lido por posição (em blocos ou em janelas mapeadas)
+	private final ReadableByteChannel channel;
+	private final FileChannel file;
+	private final boolean mapped;
+	
+	// Nenhuma partida que comece nesta posição do arquivo ou depois dela é lida
+	private final long limit;
+	
+	private ByteBuffer buffer;
+	private long bufferOffset;
+	private long filePosition;
+	private boolean endOfInput;
+	
+	private final byte[] token = new byte[MAX_TOKEN];
+	private int tokenLength;
+	private final int[] moves = new int[Move.MAX_MOVES];
+	private long games;
+	
+	// Lê as partidas de um canal qualquer (arquivo, entrada padrão, socket), que deve ser bloqueante
+	public PgnReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		this.file = null;
+		this.mapped = false;
+		this.limit = Long.MAX_VALUE;
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		buffer.limit(0);
+	}
+	
+	private PgnReader(FileChannel file, long start, long limit, boolean mapped) {
+		this.channel = null;
+		this.file = file;
+		this.mapped = mapped;
+		this.limit = limit;
+		this.buffer = mapped ? ByteBuffer.allocate(0) : ByteBuffer.allocateDirect(BUFFER_SIZE);
+		buffer.limit(0);
+		this.bufferOffset = start;
+		this.filePosition = start;
+	}
+	
+	// Lê o arquivo em blocos por um canal
+	public static PgnReader open(Path path) throws IOException {
+		return new PgnReader(FileChannel.open(path, StandardOpenOption.READ), 0, Long.MAX_VALUE, false);
+	}
+	
+	// Lê o arquivo por janelas mapeadas em memória
+	public static PgnReader map(Path path) throws IOException {
+		return new PgnReader(FileChannel.open(path, StandardOpenOption.READ), 0, Long.MAX_VALUE, true);
+	}
+	
+	// Lê a próxima partida, ou retorna null no fim do arquivo (ou do trecho)
+	public PgnGame next() throws IOException {
+		int c = skipSpace();
+		if (c < 0 || offset() >= limit) {
+			return null;
+		}
+		
+		PgnGame game = new PgnGame();
+		while (c == '[') {
+			read();
+			readTag(game);
+			c = skipSpace();
+		}
+		readMoves(game);
+		games++;
+		return game;
+	}
+	
+	// Lê todas as partidas restantes, retornando quantas foram entregues ao handler
+	public long readAll(Handler handler) throws IOException {
+		long count = 0;
+		PgnGame game;
+		while ((game = next()) != null) {
+			handler.game(game);
+			count++;
+		}
+		return count;
+	}
+	
+	// Partidas lidas até agora
+	public long getGameCount() {
+		return games;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+		if (file != null) {
+			file.close();
+		}
+	}
+	
+	/* Lê o arquivo com várias threads, cada uma com um trecho do arquivo e seu próprio leitor
+	 * O handler é chamado pelas threads ao mesmo tempo e deve ser seguro para isso; as partidas não chegam em ordem
+	 */
+	public static long readParallel(Path path, int threads, boolean mapped, Handler handler) throws IOException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Número de threads inválido: " + threads);
+		}
+		
+		// Início de cada trecho: a primeira partida depois da divisão do arquivo em partes iguais
+		long size = Files.size(path);
+		long[] starts = new long[threads + 1];
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+			for (int i = 1; i < threads; i++) {
+				starts[i] = nextGameStart(file, Math.max(size / threads * i, starts[i - 1]), size);
+			}
+		}
+		starts[threads] = Long.MAX_VALUE;
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Long>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				long start = starts[i];
+				long limit = starts[i + 1];
+				results.add(executor.submit(() -> {
+					try (PgnReader reader = new PgnReader(FileChannel.open(path, StandardOpenOption.READ), start, limit, mapped)) {
+						return reader.readAll(handler);
+					}
+				}));
+			}
+			
+			long count = 0;
+			for (Future<Long> result : results) {
+				count += result.get();
+			}
+			return count;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException)cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			throw new IOException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Leitura interrompida");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/* Procura a partir de "from" o início de uma partida: uma etiqueta ("[") no começo de uma linha depois de
+	 * uma linha em branco, que separa os lances de uma partida das etiquetas da seguinte
+	 */
+	private static long nextGameStart(FileChannel file, long from, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		long position = from;
+		int newlines = 0;
+		while (position < size) {
+			buffer.clear();
+			int n = file.read(buffer, position);
+			if (n <= 0) {
+				break;
+			}
+			for (int i = 0; i < n; i++) {
+				int c = buffer.get(i);
+				if (c == '\n') {
+					newlines++;
+				}
+				else if (c == '[' && newlines >= 2) {
+					return position + i;
+				}
+				else if (c > ' ') {
+					newlines = 0;
+				}
+			}
+			position += n;
+		}
+		return size;
+	}
+	
+	// Etiqueta no formato [Nome "Valor"], depois do "[" já lido
+	private void readTag(PgnGame game) throws IOException {
+		skipSpace();
+		tokenLength = 0;
+		int c;
+		while ((c = peek()) > ' ' && c != '"' && c != ']') {
+			append(read());
+		}
+		String name = new String(token, 0, tokenLength, StandardCharsets.US_ASCII);
+		
+		tokenLength = 0;
+		c = skipSpace();
+		if (c == '"') {
+			read();
+			while ((c = read()) >= 0 && c != '"' && c != '\n') {
+				if (c == '\\') {
+					c = read();
+				}
+				append(c);
+			}
+		}
+		else {
+			c = 0;
+		}
+		
+		// Descarta o que houver até o fim da etiqueta
+		while (c >= 0 && c != ']' && c != '\n') {
+			c = read();
+		}
+		if (!name.isEmpty()) {
+			game.setTag(name, new String(token, 0, tokenLength, StandardCharsets.UTF_8));
+		}
+	}
+	
+	// Lances da partida até o resultado, o fim do arquivo ou as etiquetas de uma nova partida
+	private void readMoves(PgnGame game) throws IOException {
+		ChessMatch chessMatch;
+		try {
+			chessMatch = game.initialPosition();
+		} catch (ChessException e) {
+			game.setError(e.getMessage());
+			chessMatch = null;
+		}
+		
+		int c;
+		while ((c = skipSpace()) >= 0 && c != '[') {
+			read();
+			if (c == '{') {
+				skipUntil('}');
+			}
+			else if (c == ';') {
+				skipUntil('\n');
+			}
+			else if (c == '(') {
+				skipVariation();
+			}
+			else if (c != ')' && c != '}') {
+				tokenLength = 0;
+				append(c);
+				readToken();
+				if (c == '$') {
+					continue;
+				}
+				if (isResult()) {
+					game.setResult(new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+					return;
+				}
+				
+				// Depois de um erro, os lances restantes são descartados até o fim da partida
+				int start = skipMoveNumber();
+				if (start == tokenLength || chessMatch == null) {
+					continue;
+				}
+				int move = San.parse(chessMatch, token, start, tokenLength - start, moves);
+				if (move == Move.NONE) {
+					game.setError("Lance inválido: " + new String(token, start, tokenLength - start, StandardCharsets.US_ASCII));
+					chessMatch = null;
+					continue;
+				}
+				chessMatch.makeMove(move);
+				game.addMove(move);
+			}
+		}
+	}
+	
+	private void readToken() throws IOException {
+		int c;
+		while ((c = peek()) > ' ' && c != '{' && c != '}' && c != '(' && c != ')' && c != ';' && c != '[') {
+			append(read());
+		}
+	}
+	
+	private boolean isResult() {
+		return tokenIs("1-0") || tokenIs("0-1") || tokenIs("1/2-1/2") || tokenIs("*");
+	}
+	
+	private boolean tokenIs(String text) {
+		if (tokenLength != text.length()) {
+			return false;
+		}
+		for (int i = 0; i < tokenLength; i++) {
+			if (token[i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	// Posição do lance depois do número que pode precedê-lo ("12.", "12..." ou "12.e4")
+	private int skipMoveNumber() {
+		int i = 0;
+		while (i < tokenLength && token[i] >= '0' && token[i] <= '9') {
+			i++;
+		}
+		if (i > 0 && i < tokenLength && token[i] != '.') {
+			return 0;
+		}
+		while (i < tokenLength && token[i] == '.') {
+			i++;
+		}
+		return i;
+	}
+	
+	// Variante entre parênteses, que pode ter variantes e comentários dentro dela
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		int c;
+		while (depth > 0 && (c = read()) >= 0) {
+			if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+			}
+			else if (c == '{') {
+				skipUntil('}');
+			}
+			else if (c == ';') {
+				skipUntil('\n');
+			}
+		}
+	}
+	
+	private void skipUntil(int end) throws IOException {
+		int c;
+		while ((c = read()) >= 0 && c != end) {
+		}
+	}
+	
+	// Ignora espaços e quebras de linha e retorna o próximo byte, sem consumi-lo
+	private int skipSpace() throws IOException {
+		int c;
+		while ((c = peek()) >= 0 && c <= ' ') {
+			read();
+		}
+		return c;
+	}
+	
+	private void append(int c) {
+		if (tokenLength < MAX_TOKEN && c >= 0) {
+			token[tokenLength++] = (byte)c;
+		}
+	}
+	
+	private long offset() {
+		return bufferOffset + buffer.position();
+	}
+	
+	private int peek() throws IOException {
+		if (!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return buffer.get(buffer.position()) & 0xFF;
+	}
+	
+	private int read() throws IOException {
+		if (!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+	
+	// Carrega o próximo bloco (ou janela mapeada) do arquivo, retornando falso no fim da entrada
+	private boolean fill() throws IOException {
+		if (endOfInput) {
+			return false;
+		}
+		bufferOffset += buffer.limit();
+		
+		if (mapped) {
+			long size = Math.min(MAP_WINDOW, file.size() - filePosition);
+			if (size <= 0) {
+				endOfInput = true;
+				return false;
+			}
+			buffer = file.map(MapMode.READ_ONLY, filePosition, size);
+			filePosition += size;
+			return true;
+		}
+		
+		buffer.clear();
+		int n;
+		do {
+			n = (file != null) ? file.read(buffer, filePosition) : channel.read(buffer);
+		} while (n == 0);
+		if (n < 0) {
+			endOfInput = true;
+			buffer.limit(0);
+			return false;
+		}
+		filePosition += n;
+		buffer.flip();
+		return true;
+	}
+	
+}
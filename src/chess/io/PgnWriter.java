@@ -0,0 +1,107 @@
+package chess.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.San;
+
+/* Escrita de partidas no formato PGN: as sete etiquetas obrigatórias (com "?" quando não informadas), as demais etiquetas,
+ * e os lances em SAN numerados, com linhas de até 80 caracteres, seguidos do resultado
+ */
+public class PgnWriter implements Closeable, Flushable {
+	
+	private static final int LINE_LENGTH = 80;
+	private static final String[] REQUIRED_TAGS = { "Event", "Site", "Date", "Round", "White", "Black", "Result" };
+	
+	private final Writer out;
+	private final StringBuilder line = new StringBuilder(LINE_LENGTH + 16);
+	
+	public PgnWriter(Writer out) {
+		this.out = out;
+	}
+	
+	public static PgnWriter open(Path path) throws IOException {
+		return new PgnWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+	}
+	
+	public void write(PgnGame game) throws IOException {
+		for (String name : REQUIRED_TAGS) {
+			String value = name.equals("Result") ? game.getResult() : game.getTag(name);
+			writeTag(name, (value == null) ? "?" : value);
+		}
+		for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+			if (!isRequired(tag.getKey())) {
+				writeTag(tag.getKey(), tag.getValue());
+			}
+		}
+		out.write('\n');
+		
+		// Os lances são jogados em uma cópia da posição inicial para serem escritos em SAN
+		ChessMatch chessMatch = game.initialPosition();
+		line.setLength(0);
+		for (int i = 0; i < game.getMoveCount(); i++) {
+			int move = game.getMove(i);
+			int number = (chessMatch.getTurn() + 1) / 2;
+			if (chessMatch.getCurrentPlayer() == Color.BRANCO) {
+				writeToken(number + ".");
+			}
+			else if (i == 0) {
+				writeToken(number + "...");
+			}
+			writeToken(San.toSan(chessMatch, move));
+			chessMatch.makeMove(move);
+		}
+		writeToken(game.getResult());
+		out.write(line.toString());
+		out.write("\n\n");
+	}
+	
+	private void writeTag(String name, String value) throws IOException {
+		out.write('[');
+		out.write(name);
+		out.write(" \"");
+		out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+		out.write("\"]\n");
+	}
+	
+	// Acrescenta um elemento à linha de lances, quebrando a linha quando ela passaria do limite
+	private void writeToken(String token) throws IOException {
+		if (line.length() > 0 && line.length() + 1 + token.length() > LINE_LENGTH) {
+			out.write(line.toString());
+			out.write('\n');
+			line.setLength(0);
+		}
+		if (line.length() > 0) {
+			line.append(' ');
+		}
+		line.append(token);
+	}
+	
+	private static boolean isRequired(String name) {
+		for (String required : REQUIRED_TAGS) {
+			if (required.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+	
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+	
+}
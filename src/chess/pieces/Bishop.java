@@ -1,9 +1,11 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Bitboards;
+import chess.ChessBoard;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Bishop extends ChessPiece {
 
@@ -11,6 +13,11 @@ public class Bishop extends ChessPiece {
 		super(board, color);
 	}
 	
+	@Override
+	public PieceType getType() {
+		return PieceType.BISPO;
+	}
+	
 	@Override
 	// Método toString simples para imprimir a inicial da peça "Bispo" nas casas do tabuleiro
 	public String toString() {
@@ -18,55 +25,13 @@ public class Bishop extends ChessPiece {
 	}
 
 	@Override
-	// Método que receberá a lógica do movimento do Bispo no Xadrez
-		public boolean[][] possibleMoves() {
-			
-			// Matriz booleana de mesmas dimensões do tabuleiro (inicialmente recebe falso por padrão)
-			boolean mat[][] = new boolean[getBoard().getRows()][getBoard().getColumns()];
-			
-			Position p = new Position(0, 0);
-			
-			// Verifica se há uma peça à noroeste do Bispo e se a peça é inimiga
-			p.setValues(position.getRow() - 1, position.getColumn() - 1);
-			while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-				p.setValues(p.getRow() - 1, p.getColumn() - 1);
-			}
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se há uma peça à nordeste do Bispo e se a peça é inimiga
-			p.setValues(position.getRow() - 1, position.getColumn() + 1);
-			while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-				p.setValues(p.getRow() - 1, p.getColumn() + 1);;
-			}
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se há uma peça à sudoeste do Bispo e se a peça é inimiga
-			p.setValues(position.getRow() + 1, position.getColumn() - 1);
-			while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-				p.setValues(p.getRow() + 1, p.getColumn() - 1);;
-			}
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se há uma peça à sudeste do Bispo e se a peça é inimiga
-			p.setValues(position.getRow() + 1, position.getColumn() + 1);
-			while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-				p.setValues(p.getRow() + 1, p.getColumn() + 1);
-			}
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			return mat;
-		}
+	/* Método que recebe a lógica do movimento do Bispo no Xadrez
+	 * As casas atacadas vêm dos bitboards do tabuleiro, excluindo as ocupadas por peças da mesma cor
+	 */
+	public int generateMoves(int[] moves, int count, int kinds) {
+		ChessBoard board = getChessBoard();
+		long targets = Bitboards.bishopAttacks(getSquare(), board.occupied()) & ~board.occupancy(getColor());
+		return addMoves(moves, count, targets, kinds);
+	}
 
 }
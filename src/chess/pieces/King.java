@@ -1,10 +1,14 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Bitboards;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.PieceType;
 
 public class King extends ChessPiece{
 
@@ -15,108 +19,70 @@ public class King extends ChessPiece{
 		this.chessMatch = chessMatch;
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.REI;
+	}
+	
 	// Método toString simples para imprimir a inicial da peça "Rei" nas casas do tabuleiro
 	@Override
 	public String toString() {
 		return "R";
 	}
 
-	/* Método que retorna verdadeiro se o Rei possui movimentos legais (caso uma casa adjacente esteja vazia
-	 * ou caso a peça em uma casa adjacente seja de cor diferente
-	 */
-	private boolean canMove(Position position) {
-		ChessPiece p = (ChessPiece)getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
-	}
-	
 	// Método para verificar se uma Torre está apta a fazer o Roque
-	private boolean testRookCastling(Position position) {
-		ChessPiece p = (ChessPiece)getBoard().piece(position);
+	private boolean testRookCastling(int square) {
+		ChessPiece p = getChessBoard().pieceAt(square);
 		return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
 	}
 	
-	@Override
-	// Método que receberá a lógica do movimento do Rei no Xadrez
-	public boolean[][] possibleMoves() {
-		
-		// Matriz booleana de mesmas dimensões do tabuleiro (inicialmente recebe falso por padrão)
-		boolean mat[][] = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		
-		Position p = new Position(0,0);
-		
-		// Verifica se há uma peça acima do Rei
-		p.setValues(position.getRow() - 1, position.getColumn());
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		// Verifica se há uma peça abaixo do Rei
-		p.setValues(position.getRow() + 1, position.getColumn());
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		// Verifica se há uma peça à esquerda do Rei
-		p.setValues(position.getRow(), position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		// Verifica se há uma peça à direita do Rei
-		p.setValues(position.getRow(), position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		// Verifica se há uma peça à noroeste do Rei
-		p.setValues(position.getRow() - 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		// Verifica se há uma peça à nordeste do Rei
-		p.setValues(position.getRow() - 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		// Verifica se há uma peça à sudoeste do Rei
-		p.setValues(position.getRow() + 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
+	// Verifica se alguma das casas do Roque (a do Rei e as que ele atravessa) é atacada pelo oponente
+	private boolean isAttacked(int first, int last) {
+		ChessBoard board = getChessBoard();
+		Color opponent = chessMatch.opponent(getColor());
+		for (int square = first; square <= last; square++) {
+			if (board.isSquareAttacked(square, opponent)) {
+				return true;
+			}
 		}
+		return false;
+	}
+	
+	@Override
+	// Método que recebe a lógica do movimento do Rei no Xadrez
+	public int generateMoves(int[] moves, int count, int kinds) {
+		ChessBoard board = getChessBoard();
+		int square = getSquare();
 		
-		// Verifica se há uma peça à sudeste do Rei
-		p.setValues(position.getRow() + 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
+		// Casas adjacentes ao Rei que estejam vazias ou ocupadas por peças de cor diferente
+		long targets = Bitboards.kingAttacksFrom(square) & ~board.occupancy(getColor());
+		count = addMoves(moves, count, targets, kinds);
 		
-		// Verifica se o Rei está apto a fazer o movimento especial Roque
-		if (getMoveCount() == 0 && !chessMatch.getCheck()) {
+		/* Verifica se o Rei está apto a fazer o movimento especial Roque
+		 * O Rei não pode estar em xeque nem passar por uma casa atacada pelo oponente
+		 */
+		if (getMoveCount() == 0 && (kinds & MoveGenerator.QUIETS) != 0) {
+			long occupied = board.occupied();
+			int column = Bitboards.column(square);
+			
 			// Roque pequeno
-			Position r1 = new Position(position.getRow(), position.getColumn() + 3);
-			if (testRookCastling(r1)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-				if (!getBoard().thereIsAPiece(p1) && !getBoard().thereIsAPiece(p2)) {
-					mat[position.getRow()][position.getColumn() + 2] = true;
+			if (column + 3 < 8 && testRookCastling(square + 3)) {
+				if ((occupied & (Bitboards.bit(square + 1) | Bitboards.bit(square + 2))) == 0
+						&& !isAttacked(square, square + 2)) {
+					moves[count++] = Move.encode(square, square + 2, Move.KING_CASTLE);
 				}
 			}
 			
 			// Roque grande
-			Position r2 = new Position(position.getRow(), position.getColumn() - 4);
-			if (testRookCastling(r2)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-				Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-				if (!getBoard().thereIsAPiece(p1) && !getBoard().thereIsAPiece(p2) && !getBoard().thereIsAPiece(p3)) {
-					mat[position.getRow()][position.getColumn() - 2] = true;
+			if (column - 4 >= 0 && testRookCastling(square - 4)) {
+				if ((occupied & (Bitboards.bit(square - 1) | Bitboards.bit(square - 2) | Bitboards.bit(square - 3))) == 0
+						&& !isAttacked(square - 2, square)) {
+					moves[count++] = Move.encode(square, square - 2, Move.QUEEN_CASTLE);
 				}
 			}
 		}
 		
-		return mat;
+		return count;
 	}
 	
 }
\ No newline at end of file
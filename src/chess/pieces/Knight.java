@@ -1,9 +1,10 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Bitboards;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Knight extends ChessPiece {
 
@@ -11,68 +12,21 @@ public class Knight extends ChessPiece {
 		super(board, color);
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.CAVALO;
+	}
+	
 	@Override
 	// Método toString simples para imprimir na tela a inicial da peça "Cavalo" nas casas do tabuleiro
 	public String toString() {
 		return "C";
 	}
-	/* Método que retorna verdadeiro se o CAvalo possui movimentos legais (caso uma casa adjacente esteja vazia
-	 * ou caso a peça em uma casa adjacente seja de cor diferente
-	 */
-	private boolean canMove(Position position) {
-		ChessPiece p = (ChessPiece)getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
-	}
 	
 	@Override
-	// Método que receberá a lógica do movimento do Cavalo no Xadrez
-	public boolean[][] possibleMoves() {
-		
-		// Matriz booleana de mesmas dimensões do tabuleiro (inicialmente recebe falso por padrão)
-		boolean mat[][] = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		
-		Position p = new Position(0,0);
-		
-		p.setValues(position.getRow() - 1, position.getColumn() - 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() - 2, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() - 2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() - 1, position.getColumn() + 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 1, position.getColumn() + 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 2, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		p.setValues(position.getRow() + 1, position.getColumn() - 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			mat[p.getRow()][p.getColumn()] = true;
-		}
-		
-		return mat;
+	// Método que recebe a lógica do movimento do Cavalo no Xadrez (casas em "L" que não têm peças da mesma cor)
+	public int generateMoves(int[] moves, int count, int kinds) {
+		long targets = Bitboards.knightAttacksFrom(getSquare()) & ~getChessBoard().occupancy(getColor());
+		return addMoves(moves, count, targets, kinds);
 	}
 }
@@ -1,13 +1,20 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Bitboards;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece {
 	
+	// Deslocamento de uma casa à frente por cor: as pretas andam em direção à linha 7 e as brancas em direção à linha 0
+	private static final int[] FORWARD = {8, -8};
+	
 	private ChessMatch chessMatch;
 
 	public Pawn(Board board, Color color, ChessMatch chessMatch) {
@@ -15,106 +22,75 @@ public class Pawn extends ChessPiece {
 		this.chessMatch = chessMatch;
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.PEAO;
+	}
+	
 	@Override
 	// Método toString simples para imprimir a inicial da peça "Peão" nas casas do tabuleiro
 	public String toString() {
 		return "P";
 	}
 	
+	// Adiciona um lance de Peão, desdobrando-o nas quatro promoções possíveis quando chega à última fileira
+	private static int addPawnMove(int[] moves, int count, int from, int to, boolean capture) {
+		int row = Bitboards.row(to);
+		if (row == 0 || row == 7) {
+			moves[count++] = Move.promotion(from, to, PieceType.DAMA, capture);
+			moves[count++] = Move.promotion(from, to, PieceType.CAVALO, capture);
+			moves[count++] = Move.promotion(from, to, PieceType.TORRE, capture);
+			moves[count++] = Move.promotion(from, to, PieceType.BISPO, capture);
+		}
+		else {
+			moves[count++] = Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET);
+		}
+		return count;
+	}
+	
 	@Override
-	// Método que receberá a lógica do movimento do Peão no Xadrez
-	public boolean[][] possibleMoves() {
-		boolean mat[][] = new boolean[getBoard().getRows()][getBoard().getColumns()];
-		
-		Position p = new Position(0, 0);
+	// Método que recebe a lógica do movimento do Peão no Xadrez
+	public int generateMoves(int[] moves, int count, int kinds) {
+		ChessBoard board = getChessBoard();
+		Color opponent = (getColor() == Color.BRANCO) ? Color.PRETO : Color.BRANCO;
+		int from = getSquare();
+		int forward = FORWARD[getColor().ordinal()];
 		
-		if (getColor() == Color.BRANCO) {
-			
-			// Verifica se o peão pode ir uma casa a frente
-			p.setValues(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se o peão está na casa inicial e, se estiver, se pode andar duas casas
-			p.setValues(position.getRow() - 2, position.getColumn());
-			Position p2 = new Position(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se o peão pode capturar uma peça em sua diagonal esquerda
-			p.setValues(position.getRow() - 1, position.getColumn() - 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
+		/* Verifica se o peão pode ir uma casa a frente e, se estiver na casa inicial, duas casas
+		 * O avanço que chega à última fileira é uma promoção, gerada junto com as capturas
+		 */
+		int to = from + forward;
+		if (to >= 0 && to < 64 && board.pieceAt(to) == null) {
+			boolean promotion = Bitboards.row(to) == 0 || Bitboards.row(to) == 7;
+			if ((kinds & (promotion ? MoveGenerator.CAPTURES : MoveGenerator.QUIETS)) != 0) {
+				count = addPawnMove(moves, count, from, to, false);
 			}
-			
-			// Verifica se o peão pode capturar uma peça em sua diagonal direita
-			p.setValues(position.getRow() - 1, position.getColumn() + 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
+			int to2 = to + forward;
+			if ((kinds & MoveGenerator.QUIETS) != 0 && getMoveCount() == 0 && to2 >= 0 && to2 < 64 && board.pieceAt(to2) == null) {
+				moves[count++] = Move.encode(from, to2, Move.DOUBLE_PAWN_PUSH);
 			}
-			
-			// Método que verifica se o Peão está apto a fazer o movimento especial En Passant
-			if (position.getRow() == 3) {
-				
-				// Verifica se é possível fazer o En Passant na diagonal esquerda
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() - 1][left.getColumn()] = true;
-				}
-				
-				// Verifica se é possível fazer o En Passant na diagonal direita
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() - 1][right.getColumn()] = true;
-				}
-			}
-			
-		} else {
-			// Verifica se o peão pode ir uma casa a frente
-			p.setValues(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se o peão está na casa inicial e, se estiver, se pode andar duas casas
-			p.setValues(position.getRow() + 2, position.getColumn());
-			Position p2 = new Position(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se o peão pode capturar uma peça em sua diagonal esquerda
-			p.setValues(position.getRow() + 1, position.getColumn() - 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Verifica se o peão pode capturar uma peça em sua diagonal direita
-			p.setValues(position.getRow() + 1, position.getColumn() + 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				mat[p.getRow()][p.getColumn()] = true;
-			}
-			
-			// Método que verifica se o Peão está apto a fazer o movimento especial En Passant
-			if (position.getRow() == 4) {
-				
-				// Verifica se é possível fazer o En Passant na diagonal esquerda
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					mat[left.getRow() + 1][left.getColumn()] = true;
-				}
-				
-				// Verifica se é possível fazer o En Passant na diagonal direita
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					mat[right.getRow() + 1][right.getColumn()] = true;
-				}
+		}
+		if ((kinds & MoveGenerator.CAPTURES) == 0) {
+			return count;
+		}
+		
+		// Verifica se o peão pode capturar uma peça em suas diagonais
+		long captures = Bitboards.pawnAttacksFrom(getColor(), from) & board.occupancy(opponent);
+		while (captures != 0) {
+			count = addPawnMove(moves, count, from, Bitboards.firstSquare(captures), true);
+			captures &= captures - 1;
+		}
+		
+		// Verifica se o Peão está apto a fazer o movimento especial En Passant
+		ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+		if (vulnerable != null && vulnerable.getColor() == opponent) {
+			int square = vulnerable.getSquare();
+			if (Bitboards.row(square) == Bitboards.row(from) && Math.abs(Bitboards.column(square) - Bitboards.column(from)) == 1) {
+				moves[count++] = Move.encode(from, square + forward, Move.EN_PASSANT);
 			}
 		}
 		
-		return mat;
+		return count;
 	}
 
 }
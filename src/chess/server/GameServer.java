@@ -0,0 +1,158 @@
+package chess.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessMatch;
+
+/* Servidor de partidas simultâneas por um protocolo de linhas de texto sobre TCP (descrito em GameSession)
+ * Cada conexão é uma sessão atendida por uma thread própria, que pode ficar bloqueada lendo o socket:
+ * quando a JVM tem threads virtuais (Java 21 ou mais novo), cada sessão usa uma thread virtual, que não custa
+ * uma thread do sistema enquanto espera; nas versões anteriores, as sessões usam um pool de threads sob demanda.
+ * As partidas ficam em um mapa concorrente pelo número; uma partida pode ser compartilhada por várias sessões
+ * (os dois jogadores, por exemplo) e é descartada quando a última sessão sai dela
+ */
+public class GameServer implements Closeable {
+	
+	public static final int DEFAULT_PORT = 7777;
+	
+	private static final int BACKLOG = 4096;
+	
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor = newSessionExecutor();
+	private final Map<Integer, ServerGame> games = new ConcurrentHashMap<>();
+	private final Set<GameSession> sessions = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger nextGameId = new AtomicInteger();
+	private final AtomicLong commandCount = new AtomicLong();
+	private Thread acceptor;
+	private volatile boolean closed;
+	
+	// Servidor na interface local ("localhost"), na porta dada (0 para uma porta livre qualquer)
+	public GameServer(int port) throws IOException {
+		this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	}
+	
+	public GameServer(InetSocketAddress address) throws IOException {
+		serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(address, BACKLOG);
+	}
+	
+	/* Executor com uma thread virtual por tarefa, criado por reflexão para o projeto continuar compilando no Java 17,
+	 * ou um pool de threads sob demanda quando a JVM não tem threads virtuais
+	 */
+	public static ExecutorService newSessionExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "sessao");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+	
+	// Começa a aceitar conexões em uma thread própria
+	public synchronized void start() {
+		if (acceptor != null) {
+			throw new IllegalStateException("O servidor já foi iniciado");
+		}
+		acceptor = new Thread(this::acceptLoop, "servidor-xadrez");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+	
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+	
+	public int getSessionCount() {
+		return sessions.size();
+	}
+	
+	public int getGameCount() {
+		return games.size();
+	}
+	
+	// Quantidade de comandos atendidos desde o início do servidor
+	public long getCommandCount() {
+		return commandCount.get();
+	}
+	
+	// Fecha o socket do servidor e todas as sessões; as threads das sessões terminam ao perceber o socket fechado
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		serverSocket.close();
+		for (GameSession session : sessions) {
+			session.close();
+		}
+		executor.shutdownNow();
+	}
+	
+	private void acceptLoop() {
+		while (!closed) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				GameSession session = new GameSession(this, socket);
+				sessions.add(session);
+				executor.execute(session);
+			} catch (SocketException e) {
+				// O socket do servidor foi fechado por "close"
+				break;
+			} catch (IOException e) {
+				if (closed) {
+					break;
+				}
+			}
+		}
+	}
+	
+	// Cria uma partida com uma sessão participando dela
+	ServerGame createGame(ChessMatch chessMatch) {
+		int id = nextGameId.incrementAndGet();
+		ServerGame game = new ServerGame(id, chessMatch);
+		game.join();
+		games.put(id, game);
+		return game;
+	}
+	
+	// Entra em uma partida existente, ou retorna null se ela não existe (ou acabou de ser descartada)
+	ServerGame joinGame(int id) {
+		ServerGame game = games.get(id);
+		if (game == null || !game.join()) {
+			return null;
+		}
+		return game;
+	}
+	
+	// Sai de uma partida, descartando-a quando não resta nenhuma sessão nela
+	void leaveGame(ServerGame game) {
+		if (game.leave()) {
+			games.remove(game.getId(), game);
+		}
+	}
+	
+	void commandServed() {
+		commandCount.incrementAndGet();
+	}
+	
+	void sessionClosed(GameSession session) {
+		sessions.remove(session);
+	}
+	
+}
@@ -0,0 +1,194 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Move;
+
+/* Sessão de um cliente do servidor: lê comandos, um por linha, e responde cada um com uma linha
+ * Comandos:
+ *   nova [fen <FEN>]   cria uma partida (da posição inicial ou da FEN) e entra nela; resposta "partida <número>"
+ *   entrar <número>    entra em uma partida existente (por exemplo, a do adversário); resposta "partida <número>"
+ *   lance <lance>      faz um lance em notação de coordenadas ("e2e4", "e7e8q"); resposta "ok", "ok xeque",
+ *                      "ok xeque-mate", "ok afogamento" ou "ok empate" (repetição, cinquenta lances ou material insuficiente);
+ *                      depois do fim da partida, os lances são recusados
+ *   lances             lances legais do jogador da vez (nenhum depois do fim da partida); resposta "lances e2e4 d2d4 ..."
+ *   posicao            posição atual; resposta "posicao <FEN>"
+ *   sair               sai da partida e encerra a conexão; resposta "ok"
+ * Comandos inválidos são respondidos com "erro <mensagem>"
+ */
+class GameSession implements Runnable {
+	
+	private final GameServer server;
+	private final Socket socket;
+	private ServerGame game;
+	
+	// Vetor de lances reutilizado pelos comandos da sessão
+	private final int[] moves = new int[Move.MAX_MOVES];
+	
+	GameSession(GameServer server, Socket socket) {
+		this.server = server;
+		this.socket = socket;
+	}
+	
+	@Override
+	public void run() {
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty()) {
+					continue;
+				}
+				String response;
+				try {
+					response = execute(line);
+				} catch (ChessException | NumberFormatException e) {
+					response = "erro " + e.getMessage();
+				}
+				server.commandServed();
+				out.write(response);
+				out.write('\n');
+				out.flush();
+				if (line.equals("sair")) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// Conexão encerrada pelo cliente ou pelo fechamento do servidor
+		} finally {
+			leave();
+			close();
+			server.sessionClosed(this);
+		}
+	}
+	
+	void close() {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// O socket já estava fechado
+		}
+	}
+	
+	private String execute(String line) {
+		int space = line.indexOf(' ');
+		String command = (space < 0) ? line : line.substring(0, space);
+		String argument = (space < 0) ? "" : line.substring(space + 1).trim();
+		switch (command) {
+		case "nova":
+			return newGame(argument);
+		case "entrar":
+			return joinGame(argument);
+		case "lance":
+			return move(argument);
+		case "lances":
+			return legalMoves();
+		case "posicao":
+			return position();
+		case "sair":
+			leave();
+			return "ok";
+		default:
+			throw new ChessException("Comando inválido: " + command);
+		}
+	}
+	
+	private String newGame(String argument) {
+		ChessMatch chessMatch;
+		if (argument.isEmpty()) {
+			chessMatch = new ChessMatch();
+		}
+		else if (argument.startsWith("fen ")) {
+			chessMatch = Fen.parse(argument.substring(4).trim());
+		}
+		else {
+			throw new ChessException("Argumento inválido: " + argument);
+		}
+		leave();
+		game = server.createGame(chessMatch);
+		return "partida " + game.getId();
+	}
+	
+	private String joinGame(String argument) {
+		int id = Integer.parseInt(argument);
+		if (game != null && game.getId() == id) {
+			return "partida " + id;
+		}
+		ServerGame joined = server.joinGame(id);
+		if (joined == null) {
+			throw new ChessException("Partida inexistente: " + id);
+		}
+		leave();
+		game = joined;
+		return "partida " + id;
+	}
+	
+	// Faz o lance e informa o estado do próximo jogador (xeque, xeque-mate, afogamento ou empate)
+	private String move(String argument) {
+		ServerGame current = currentGame();
+		synchronized (current) {
+			ChessMatch chessMatch = current.getChessMatch();
+			// Depois do xeque-mate e do afogamento não há lances legais; depois de um empate, os lances são recusados
+			if (isDrawn(chessMatch)) {
+				throw new ChessException("A partida terminou empatada");
+			}
+			chessMatch.makeMove(chessMatch.parseMove(argument));
+			if (chessMatch.legalMoves(moves) == 0) {
+				return chessMatch.getCheck() ? "ok xeque-mate" : "ok afogamento";
+			}
+			if (isDrawn(chessMatch)) {
+				return "ok empate";
+			}
+			return chessMatch.getCheck() ? "ok xeque" : "ok";
+		}
+	}
+	
+	private String legalMoves() {
+		ServerGame current = currentGame();
+		StringBuilder response = new StringBuilder("lances");
+		synchronized (current) {
+			int count = isDrawn(current.getChessMatch()) ? 0 : current.getChessMatch().legalMoves(moves);
+			for (int i = 0; i < count; i++) {
+				response.append(' ').append(Move.toString(moves[i]));
+			}
+		}
+		return response.toString();
+	}
+	
+	// Empate por repetição, cinquenta lances ou material insuficiente (o afogamento é testado pelos lances legais)
+	private static boolean isDrawn(ChessMatch chessMatch) {
+		return chessMatch.isThreefoldRepetition() || chessMatch.isFiftyMoveRule() || chessMatch.isInsufficientMaterial();
+	}
+	
+	private String position() {
+		ServerGame current = currentGame();
+		synchronized (current) {
+			return "posicao " + Fen.toFen(current.getChessMatch());
+		}
+	}
+	
+	private ServerGame currentGame() {
+		if (game == null) {
+			throw new ChessException("Nenhuma partida em andamento");
+		}
+		return game;
+	}
+	
+	private void leave() {
+		if (game != null) {
+			server.leaveGame(game);
+			game = null;
+		}
+	}
+	
+}
@@ -0,0 +1,46 @@
+package chess.server;
+
+import chess.ChessMatch;
+
+/* Partida hospedada pelo servidor: a partida de Xadrez, que não é segura entre threads e por isso só é usada
+ * com o monitor deste objeto, e a quantidade de sessões participando dela
+ */
+class ServerGame {
+	
+	private final int id;
+	private final ChessMatch chessMatch;
+	private int players;
+	
+	ServerGame(int id, ChessMatch chessMatch) {
+		this.id = id;
+		this.chessMatch = chessMatch;
+	}
+	
+	int getId() {
+		return id;
+	}
+	
+	// Partida de Xadrez; deve ser usada dentro de um bloco "synchronized" neste objeto
+	ChessMatch getChessMatch() {
+		return chessMatch;
+	}
+	
+	// Registra mais uma sessão, a não ser que a partida já tenha sido descartada
+	synchronized boolean join() {
+		if (players < 0) {
+			return false;
+		}
+		players++;
+		return true;
+	}
+	
+	// Retira uma sessão, retornando true quando não resta nenhuma (a partida passa a ser descartada)
+	synchronized boolean leave() {
+		if (--players == 0) {
+			players = -1;
+			return true;
+		}
+		return false;
+	}
+	
+}